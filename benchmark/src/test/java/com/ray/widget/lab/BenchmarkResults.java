@@ -0,0 +1,161 @@
+package com.ray.widget.lab;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 执行基准测试并把结果写成 JSON，方便不同提交之间对比。
+ * 路径和版本号由 build.gradle 通过 benchmark.output、benchmark.revision 传入。
+ */
+final class BenchmarkResults {
+
+    private static final String DEFAULT_OUTPUT = "build/benchmark-results/label-switch-view.json";
+
+    private final List<Result> results = new ArrayList<>();
+
+    /**
+     * 先预热 warmUp 次，再统计 iterations 次 op 的耗时分布和平均分配字节数
+     */
+    Result measure(String name, Map<String, Object> params, int warmUp, int iterations, Runnable op) {
+        for (int i = 0; i < warmUp; i++) {
+            op.run();
+        }
+        long[] samples = new long[iterations];
+        long allocStart = allocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            op.run();
+            samples[i] = System.nanoTime() - start;
+        }
+        long allocated = allocatedBytes() - allocStart;
+
+        long total = 0;
+        for (long sample : samples) {
+            total += sample;
+        }
+        Arrays.sort(samples);
+        Result result = new Result(name, params, iterations, total / iterations,
+                percentile(samples, 50), percentile(samples, 90), percentile(samples, 99),
+                (double) allocated / iterations);
+        results.add(result);
+        return result;
+    }
+
+    void write() throws IOException {
+        String path = System.getProperty("benchmark.output", DEFAULT_OUTPUT);
+        File file = new File(path);
+        File dir = file.getParentFile();
+        if (dir != null && !dir.exists() && !dir.mkdirs()) {
+            throw new IOException("can not create " + dir);
+        }
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(toJson());
+        } finally {
+            writer.close();
+        }
+    }
+
+    String toJson() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        sb.append("  \"revision\": ").append(quote(System.getProperty("benchmark.revision", ""))).append(",\n");
+        sb.append("  \"timestamp\": ").append(System.currentTimeMillis()).append(",\n");
+        sb.append("  \"jvm\": ").append(quote(System.getProperty("java.vm.name") + " " + System.getProperty("java.version"))).append(",\n");
+        sb.append("  \"results\": [\n");
+        for (int i = 0; i < results.size(); i++) {
+            results.get(i).appendJson(sb);
+            sb.append(i < results.size() - 1 ? ",\n" : "\n");
+        }
+        sb.append("  ]\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    static Map<String, Object> params(Object... keyValues) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            params.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return params;
+    }
+
+    private static long percentile(long[] sorted, int percent) {
+        int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static String quote(String value) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    static class Result {
+        final String name;
+        final Map<String, Object> params;
+        final int iterations;
+        final long meanNs, p50Ns, p90Ns, p99Ns;
+        final double bytesPerOp;
+
+        Result(String name, Map<String, Object> params, int iterations,
+               long meanNs, long p50Ns, long p90Ns, long p99Ns, double bytesPerOp) {
+            this.name = name;
+            this.params = params;
+            this.iterations = iterations;
+            this.meanNs = meanNs;
+            this.p50Ns = p50Ns;
+            this.p90Ns = p90Ns;
+            this.p99Ns = p99Ns;
+            this.bytesPerOp = bytesPerOp;
+        }
+
+        void appendJson(StringBuilder sb) {
+            sb.append("    {\"name\": ").append(quote(name)).append(", \"params\": {");
+            boolean first = true;
+            for (Map.Entry<String, Object> entry : params.entrySet()) {
+                if (!first) {
+                    sb.append(", ");
+                }
+                first = false;
+                sb.append(quote(entry.getKey())).append(": ");
+                Object value = entry.getValue();
+                if (value instanceof Number || value instanceof Boolean) {
+                    sb.append(value);
+                } else {
+                    sb.append(quote(String.valueOf(value)));
+                }
+            }
+            sb.append("}, \"iterations\": ").append(iterations)
+                    .append(", \"meanNs\": ").append(meanNs)
+                    .append(", \"p50Ns\": ").append(p50Ns)
+                    .append(", \"p90Ns\": ").append(p90Ns)
+                    .append(", \"p99Ns\": ").append(p99Ns)
+                    .append(", \"bytesPerOp\": ").append(String.format(java.util.Locale.US, "%.2f", bytesPerOp))
+                    .append('}');
+        }
+    }
+}
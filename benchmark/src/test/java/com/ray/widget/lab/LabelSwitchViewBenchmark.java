@@ -0,0 +1,231 @@
+package com.ray.widget.lab;
+
+import android.graphics.Canvas;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+
+import com.ray.widget.lab.benchmark.BuildConfig;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertFalse;
+
+/**
+ * LabelSwitchView 热点路径的基准测试：
+ * 不同 label 数量和 showSwipeRelative 下的 onDraw、完整的拖动手势、回弹动画，以及每帧分配的字节数。
+ * Canvas 的绘制命令都是空实现，测量的是 view 自身的计算开销，不包括真正的光栅化，
+ * 适合在同一台机器上对比不同提交之间的变化。
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class LabelSwitchViewBenchmark {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 144;
+    private static final int[] LABEL_COUNTS = {2, 8, 32};
+    private static final int WARM_UP = 2000;
+    private static final int ITERATIONS = 20000;
+    private static final int DRAG_STEPS = 30;
+
+    private static final BenchmarkResults results = new BenchmarkResults();
+
+    @AfterClass
+    public static void writeResults() throws IOException {
+        results.write();
+    }
+
+    @Test
+    public void draw() {
+        for (int count : LABEL_COUNTS) {
+            for (boolean relative : new boolean[]{false, true}) {
+                final ViewHolder holder = new ViewHolder(count);
+                holder.view.setShowSwipeRelative(relative);
+                holder.dragHalfCell();
+                results.measure("onDraw", BenchmarkResults.params("labels", count, "showSwipeRelative", relative),
+                        WARM_UP, ITERATIONS, new Runnable() {
+                            @Override
+                            public void run() {
+                                holder.view.onDraw(holder.canvas);
+                            }
+                        });
+            }
+        }
+    }
+
+    @Test
+    public void drawWithTextAtlas() {
+        for (int count : LABEL_COUNTS) {
+            final ViewHolder holder = new ViewHolder(count);
+            holder.view.setTextAtlasEnabled(true);
+            holder.dragHalfCell();
+            results.measure("onDraw", BenchmarkResults.params("labels", count, "textAtlas", true),
+                    WARM_UP, ITERATIONS, new Runnable() {
+                        @Override
+                        public void run() {
+                            holder.view.onDraw(holder.canvas);
+                        }
+                    });
+        }
+    }
+
+    /**
+     * 一次操作是一整次拖动：down、{@value #DRAG_STEPS} 次 move、up，每次 move 后绘制一帧
+     */
+    @Test
+    public void dragGesture() {
+        for (int count : LABEL_COUNTS) {
+            final ViewHolder holder = new ViewHolder(count);
+            results.measure("dragGesture", BenchmarkResults.params("labels", count, "moves", DRAG_STEPS),
+                    WARM_UP / 10, ITERATIONS / 10, new Runnable() {
+                        @Override
+                        public void run() {
+                            holder.drag();
+                        }
+                    });
+        }
+    }
+
+    /**
+     * 一次操作是一帧拖动：一次 move、一次帧回调和一次 onDraw，bytesPerOp 就是拖动时每帧的分配量
+     */
+    @Test
+    public void dragFrame() {
+        for (int count : LABEL_COUNTS) {
+            for (boolean relative : new boolean[]{false, true}) {
+                final ViewHolder holder = new ViewHolder(count);
+                holder.view.setShowSwipeRelative(relative);
+                results.measure("dragFrame", BenchmarkResults.params("labels", count, "showSwipeRelative", relative),
+                        WARM_UP, ITERATIONS, new Runnable() {
+                            @Override
+                            public void run() {
+                                holder.dragFrame();
+                            }
+                        });
+            }
+        }
+    }
+
+    /**
+     * 和 dragFrame 对比 staticLayer 的收益。NoOpCanvas 是软件 Canvas，这里是 Picture 回放的最好情况，
+     * 硬件加速时 staticLayer 不生效，所以默认关闭
+     */
+    @Test
+    public void dragFrameWithStaticLayer() {
+        for (int count : LABEL_COUNTS) {
+            final ViewHolder holder = new ViewHolder(count);
+            holder.view.setStaticLayerEnabled(true);
+            results.measure("dragFrame", BenchmarkResults.params("labels", count, "staticLayer", true),
+                    WARM_UP, ITERATIONS, new Runnable() {
+                        @Override
+                        public void run() {
+                            holder.dragFrame();
+                        }
+                    });
+        }
+    }
+
+    /**
+     * 一次操作是一次完整的回弹：在第一个和最后一个 label 之间切换，推进帧直到动画结束
+     */
+    @Test
+    public void settle() {
+        for (int count : LABEL_COUNTS) {
+            final ViewHolder holder = new ViewHolder(count);
+            final int last = count - 1;
+            results.measure("settle", BenchmarkResults.params("labels", count),
+                    WARM_UP / 10, ITERATIONS / 10, new Runnable() {
+                        private boolean toLast = true;
+
+                        @Override
+                        public void run() {
+                            holder.view.setSelectedIndex(toLast ? last : 0);
+                            toLast = !toLast;
+                            while (holder.frameClock.hasPendingFrame()) {
+                                holder.frameClock.advance();
+                                holder.view.onDraw(holder.canvas);
+                            }
+                        }
+                    });
+            assertFalse(holder.frameClock.hasPendingFrame());
+        }
+    }
+
+    private static class ViewHolder {
+        final LabelSwitchView view;
+        final FakeFrameClock frameClock = new FakeFrameClock();
+        final Canvas canvas = new NoOpCanvas();
+        final float cellWidth;
+        final MotionEvent event;
+        private int frame = 0;
+
+        ViewHolder(int labelCount) {
+            view = new LabelSwitchView(RuntimeEnvironment.application);
+            view.setFrameClock(frameClock);
+            String[] labels = new String[labelCount];
+            for (int i = 0; i < labelCount; i++) {
+                labels[i] = "Label" + i;
+            }
+            view.setLabels(labels);
+            view.setThumbColor(0xFF2196F3, 8);
+            view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                    View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+            view.layout(0, 0, WIDTH, HEIGHT);
+            cellWidth = (float) WIDTH / labelCount;
+            long now = SystemClock.uptimeMillis();
+            event = MotionEvent.obtain(now, now, MotionEvent.ACTION_DOWN, 0, HEIGHT / 2, 0);
+        }
+
+        void dragHalfCell() {
+            touch(MotionEvent.ACTION_DOWN, cellWidth / 2);
+            touch(MotionEvent.ACTION_MOVE, cellWidth * 1.5f);
+            touch(MotionEvent.ACTION_MOVE, cellWidth);
+        }
+
+        void drag() {
+            float startX = cellWidth / 2;
+            float stepX = cellWidth / 10;
+            touch(MotionEvent.ACTION_DOWN, startX);
+            for (int i = 1; i <= DRAG_STEPS; i++) {
+                touch(MotionEvent.ACTION_MOVE, startX + stepX * i);
+                view.onDraw(canvas);
+            }
+            touch(MotionEvent.ACTION_UP, startX + stepX * DRAG_STEPS);
+            while (frameClock.hasPendingFrame()) {
+                frameClock.advance();
+            }
+            view.setSelectedIndex(0);
+            while (frameClock.hasPendingFrame()) {
+                frameClock.advance();
+            }
+        }
+
+        /**
+         * 在第 0 格和第 1 格之间来回拖动，每帧一次 move
+         */
+        void dragFrame() {
+            int step = frame % (DRAG_STEPS * 2);
+            if (step == 0) {
+                touch(MotionEvent.ACTION_DOWN, cellWidth / 2);
+            }
+            float progress = step < DRAG_STEPS ? step : DRAG_STEPS * 2 - step;
+            touch(MotionEvent.ACTION_MOVE, cellWidth / 2 + cellWidth * progress / DRAG_STEPS);
+            frameClock.advance();
+            view.onDraw(canvas);
+            frame++;
+        }
+
+        private void touch(int action, float x) {
+            event.setAction(action);
+            event.setLocation(x, HEIGHT / 2);
+            view.onTouchEvent(event);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.ray.widget.lab;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.SystemClock;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+import android.view.MotionEvent;
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * 对比逐个 drawText 和 label 图层两种方式每帧 onDraw 的耗时，结果输出到 logcat。
+ * thumb 停在两个格子中间，开启 showSwipeRelative，对应拖动过程中最重的一帧。
+ */
+@RunWith(AndroidJUnit4.class)
+public class LabelTextAtlasBenchmark {
+
+    private static final String TAG = "LabelTextAtlasBenchmark";
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 144;
+    private static final int WARM_UP_FRAMES = 200;
+    private static final int FRAMES = 2000;
+
+    @Test
+    public void compareDrawCost() throws Exception {
+        int[] labelCounts = {2, 8, 32};
+        for (int count : labelCounts) {
+            long textNanos = measure(count, false);
+            long atlasNanos = measure(count, true);
+            Log.i(TAG, String.format("labels=%d drawText=%dns atlas=%dns", count, textNanos, atlasNanos));
+        }
+    }
+
+    /**
+     * @return 平均每帧 onDraw 的耗时
+     */
+    private long measure(int labelCount, boolean atlas) {
+        Context context = InstrumentationRegistry.getTargetContext();
+        LabelSwitchView view = new LabelSwitchView(context);
+        String[] labels = new String[labelCount];
+        for (int i = 0; i < labelCount; i++) {
+            labels[i] = "Label" + i;
+        }
+        view.setLabels(labels);
+        view.setShowSwipeRelative(true);
+        view.setTextAtlasEnabled(atlas);
+        view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, WIDTH, HEIGHT);
+        dragHalfCell(view, (float) WIDTH / labelCount);
+
+        Canvas canvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+        for (int i = 0; i < WARM_UP_FRAMES; i++) {
+            view.onDraw(canvas);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < FRAMES; i++) {
+            view.onDraw(canvas);
+        }
+        return (System.nanoTime() - start) / FRAMES;
+    }
+
+    private static void dragHalfCell(LabelSwitchView view, float cellWidth) {
+        long now = SystemClock.uptimeMillis();
+        float x = cellWidth / 2;
+        MotionEvent event = MotionEvent.obtain(now, now, MotionEvent.ACTION_DOWN, x, HEIGHT / 2, 0);
+        view.onTouchEvent(event);
+        //先移动一整格越过拖动阈值，再退回半格
+        event.setAction(MotionEvent.ACTION_MOVE);
+        event.setLocation(x + cellWidth, HEIGHT / 2);
+        view.onTouchEvent(event);
+        event.setLocation(x + cellWidth / 2, HEIGHT / 2);
+        view.onTouchEvent(event);
+        event.recycle();
+    }
+}
@@ -0,0 +1,34 @@
+package com.ray.widget.lab;
+
+/**
+ * setLabels 和 xml 中 labels 属性使用的数据源，直接引用传入的数组，不复制
+ */
+final class ArrayLabelAdapter extends LabelAdapter {
+
+    private CharSequence[] labels;
+
+    ArrayLabelAdapter(CharSequence[] labels) {
+        this.labels = labels;
+    }
+
+    CharSequence[] getLabels() {
+        return labels;
+    }
+
+    /**
+     * 替换数组，由调用方负责按差异通知 observer
+     */
+    void setLabels(CharSequence[] labels) {
+        this.labels = labels;
+    }
+
+    @Override
+    public int getCount() {
+        return labels == null ? 0 : labels.length;
+    }
+
+    @Override
+    public CharSequence getLabel(int position) {
+        return labels[position];
+    }
+}
@@ -0,0 +1,35 @@
+package com.ray.widget.lab;
+
+import android.view.Choreographer;
+
+/**
+ * 动画使用的帧时钟，默认由 Choreographer 驱动，测试时可以替换成手动推进的时钟。
+ */
+interface FrameClock {
+
+    FrameClock CHOREOGRAPHER = new FrameClock() {
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+
+        @Override
+        public void postFrameCallback(Choreographer.FrameCallback callback) {
+            Choreographer.getInstance().postFrameCallback(callback);
+        }
+
+        @Override
+        public void removeFrameCallback(Choreographer.FrameCallback callback) {
+            Choreographer.getInstance().removeFrameCallback(callback);
+        }
+    };
+
+    /**
+     * @return 和帧回调里的 frameTimeNanos 同一时间基准的当前时间
+     */
+    long nanoTime();
+
+    void postFrameCallback(Choreographer.FrameCallback callback);
+
+    void removeFrameCallback(Choreographer.FrameCallback callback);
+}
@@ -0,0 +1,168 @@
+package com.ray.widget.lab;
+
+import android.view.Choreographer;
+
+/**
+ * 按各个 listener 的 delivery 方式分发 index 变化：
+ * 立即回调；同一帧内的多次变化合并成一次；或者等 thumb 停下后只回调一次。
+ * listener 数组在增删时整体替换，分发时直接遍历，不产生额外分配。
+ */
+class IndexChangeDispatcher implements Choreographer.FrameCallback {
+
+    private static final Entry[] EMPTY = new Entry[0];
+
+    private Entry[] entries = EMPTY;
+    private FrameClock frameClock = FrameClock.CHOREOGRAPHER;
+    //为 null 时不计时
+    private LabelSwitchView.MetricsListener metricsListener;
+
+    //DELIVERY_COALESCED：本帧第一次变化前的 index 和最新的 index
+    private boolean framePending = false;
+    private int frameFromIndex, frameToIndex;
+    private long frameChangeNanos;
+    //DELIVERY_SETTLED：thumb 开始移动前的 index 和最新的 index
+    private boolean settlePending = false;
+    private int settleFromIndex, settleToIndex;
+    private long settleChangeNanos;
+
+    void setFrameClock(FrameClock frameClock) {
+        if (framePending) {
+            this.frameClock.removeFrameCallback(this);
+            framePending = false;
+        }
+        this.frameClock = frameClock;
+    }
+
+    void setMetricsListener(LabelSwitchView.MetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
+    void add(LabelSwitchView.OnIndexChangeListener listener, int delivery) {
+        if (listener == null) {
+            return;
+        }
+        remove(listener);
+        Entry[] newEntries = new Entry[entries.length + 1];
+        System.arraycopy(entries, 0, newEntries, 0, entries.length);
+        newEntries[entries.length] = new Entry(listener, delivery);
+        entries = newEntries;
+    }
+
+    void remove(LabelSwitchView.OnIndexChangeListener listener) {
+        for (int i = 0; i < entries.length; i++) {
+            if (entries[i].listener == listener) {
+                Entry[] newEntries = new Entry[entries.length - 1];
+                System.arraycopy(entries, 0, newEntries, 0, i);
+                System.arraycopy(entries, i + 1, newEntries, i, entries.length - i - 1);
+                entries = newEntries;
+                return;
+            }
+        }
+    }
+
+    /**
+     * 选中的 index 发生变化
+     */
+    void dispatch(int oldIndex, int newIndex) {
+        Entry[] entries = this.entries;
+        long now = metricsListener == null ? 0 : frameClock.nanoTime();
+        boolean hasImmediate = false;
+        boolean hasCoalesced = false;
+        boolean hasSettled = false;
+        for (Entry entry : entries) {
+            if (entry.delivery == LabelSwitchView.DELIVERY_IMMEDIATE) {
+                hasImmediate = true;
+                entry.listener.onIndexChange(oldIndex, newIndex);
+            } else if (entry.delivery == LabelSwitchView.DELIVERY_COALESCED) {
+                hasCoalesced = true;
+            } else {
+                hasSettled = true;
+            }
+        }
+        if (hasImmediate && metricsListener != null) {
+            metricsListener.onIndexChangeDelivered(LabelSwitchView.DELIVERY_IMMEDIATE, 0, frameClock.nanoTime() - now);
+        }
+        if (hasCoalesced) {
+            if (!framePending) {
+                framePending = true;
+                frameFromIndex = oldIndex;
+                frameChangeNanos = now;
+                frameClock.postFrameCallback(this);
+            }
+            frameToIndex = newIndex;
+        }
+        if (hasSettled) {
+            if (!settlePending) {
+                settlePending = true;
+                settleFromIndex = oldIndex;
+                settleChangeNanos = now;
+            }
+            settleToIndex = newIndex;
+        }
+    }
+
+    /**
+     * thumb 已经停在选中的格子上
+     */
+    void onSettled() {
+        if (!settlePending) {
+            return;
+        }
+        settlePending = false;
+        deliver(LabelSwitchView.DELIVERY_SETTLED, settleFromIndex, settleToIndex, settleChangeNanos);
+    }
+
+    /**
+     * 丢弃还没回调的 DELIVERY_SETTLED 变化，thumb 的位置改由外部的滚动决定时调用
+     */
+    void cancelSettled() {
+        settlePending = false;
+    }
+
+    /**
+     * 立即分发所有还没回调的变化，view detach 时调用
+     */
+    void flush() {
+        if (framePending) {
+            frameClock.removeFrameCallback(this);
+            doFrame(0);
+        }
+        onSettled();
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        framePending = false;
+        deliver(LabelSwitchView.DELIVERY_COALESCED, frameFromIndex, frameToIndex, frameChangeNanos);
+    }
+
+    /**
+     * @param changeNanos 第一次变化的时间，用于统计回调的延迟
+     */
+    private void deliver(int delivery, int oldIndex, int newIndex, long changeNanos) {
+        if (oldIndex == newIndex) {
+            //来回拖动后又回到了原来的位置
+            return;
+        }
+        long start = metricsListener == null ? 0 : frameClock.nanoTime();
+        Entry[] entries = this.entries;
+        for (Entry entry : entries) {
+            if (entry.delivery == delivery) {
+                entry.listener.onIndexChange(oldIndex, newIndex);
+            }
+        }
+        if (metricsListener != null) {
+            metricsListener.onIndexChangeDelivered(delivery, start - changeNanos, frameClock.nanoTime() - start);
+        }
+    }
+
+    private static class Entry {
+        final LabelSwitchView.OnIndexChangeListener listener;
+        final int delivery;
+
+        Entry(LabelSwitchView.OnIndexChangeListener listener, int delivery) {
+            this.listener = listener;
+            this.delivery = delivery;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.ray.widget.lab;
+
+import android.graphics.Rect;
+import android.os.Bundle;
+import android.view.View;
+import android.view.ViewParent;
+import android.view.accessibility.AccessibilityEvent;
+import android.view.accessibility.AccessibilityNodeInfo;
+import android.view.accessibility.AccessibilityNodeProvider;
+
+/**
+ * 把每个 label 作为一个虚拟的子 view 提供给无障碍服务和 UI 自动化工具。
+ * 只在系统第一次查询时创建，节点在查询时才按缓存的 label 布局生成，不影响 onDraw。
+ * 可滚动时只提供可见范围内的 label。
+ */
+class LabelAccessibilityProvider extends AccessibilityNodeProvider {
+
+    static final int HOST_ID = View.NO_ID;
+    private static final String LABEL_CLASS_NAME = "android.widget.Button";
+
+    private final LabelSwitchView host;
+    //复用的临时对象，所有调用都在主线程
+    private final Rect tempRect = new Rect();
+    private final int[] tempLocation = new int[2];
+    private int focusedIndex = HOST_ID;
+    private int hoveredIndex = HOST_ID;
+
+    LabelAccessibilityProvider(LabelSwitchView host) {
+        this.host = host;
+    }
+
+    @Override
+    public AccessibilityNodeInfo createAccessibilityNodeInfo(int virtualViewId) {
+        if (virtualViewId == HOST_ID) {
+            return createHostNodeInfo();
+        }
+        if (virtualViewId < 0 || virtualViewId >= host.getLabelCount()) {
+            return null;
+        }
+        return createLabelNodeInfo(virtualViewId);
+    }
+
+    private AccessibilityNodeInfo createHostNodeInfo() {
+        AccessibilityNodeInfo info = AccessibilityNodeInfo.obtain(host);
+        host.onInitializeAccessibilityNodeInfo(info);
+        int last = host.getLastVisibleIndex();
+        for (int i = host.getFirstVisibleIndex(); i <= last; i++) {
+            info.addChild(host, i);
+        }
+        return info;
+    }
+
+    private AccessibilityNodeInfo createLabelNodeInfo(int index) {
+        AccessibilityNodeInfo info = AccessibilityNodeInfo.obtain(host, index);
+        info.setSource(host, index);
+        info.setParent(host);
+        info.setPackageName(host.getContext().getPackageName());
+        info.setClassName(LABEL_CLASS_NAME);
+        info.setText(host.getLabelText(index));
+        info.setEnabled(host.isEnabled());
+        info.setClickable(true);
+        info.setFocusable(true);
+        boolean selected = index == host.getSelectedIndex();
+        info.setSelected(selected);
+        if (!selected) {
+            info.addAction(AccessibilityNodeInfo.ACTION_CLICK);
+            info.addAction(AccessibilityNodeInfo.ACTION_SELECT);
+        }
+        if (focusedIndex == index) {
+            info.setAccessibilityFocused(true);
+            info.addAction(AccessibilityNodeInfo.ACTION_CLEAR_ACCESSIBILITY_FOCUS);
+        } else {
+            info.addAction(AccessibilityNodeInfo.ACTION_ACCESSIBILITY_FOCUS);
+        }
+
+        Rect bounds = tempRect;
+        host.getLabelBounds(index, bounds);
+        info.setVisibleToUser(bounds.intersect(0, 0, host.getWidth(), host.getHeight()));
+        info.setBoundsInParent(bounds);
+        host.getLocationOnScreen(tempLocation);
+        bounds.offset(tempLocation[0], tempLocation[1]);
+        info.setBoundsInScreen(bounds);
+        return info;
+    }
+
+    @Override
+    public boolean performAction(int virtualViewId, int action, Bundle arguments) {
+        if (virtualViewId == HOST_ID) {
+            return host.performAccessibilityAction(action, arguments);
+        }
+        if (virtualViewId < 0 || virtualViewId >= host.getLabelCount()) {
+            return false;
+        }
+        switch (action) {
+            case AccessibilityNodeInfo.ACTION_CLICK:
+            case AccessibilityNodeInfo.ACTION_SELECT:
+                if (virtualViewId == host.getSelectedIndex()) {
+                    return false;
+                }
+                if (action == AccessibilityNodeInfo.ACTION_CLICK) {
+                    sendEventForLabel(virtualViewId, AccessibilityEvent.TYPE_VIEW_CLICKED);
+                }
+                //选中的事件在 index 变化时发出
+                host.selectLabel(virtualViewId);
+                return true;
+            case AccessibilityNodeInfo.ACTION_ACCESSIBILITY_FOCUS:
+                if (focusedIndex == virtualViewId) {
+                    return false;
+                }
+                focusedIndex = virtualViewId;
+                host.invalidate();
+                sendEventForLabel(virtualViewId, AccessibilityEvent.TYPE_VIEW_ACCESSIBILITY_FOCUSED);
+                return true;
+            case AccessibilityNodeInfo.ACTION_CLEAR_ACCESSIBILITY_FOCUS:
+                if (focusedIndex != virtualViewId) {
+                    return false;
+                }
+                focusedIndex = HOST_ID;
+                host.invalidate();
+                sendEventForLabel(virtualViewId, AccessibilityEvent.TYPE_VIEW_ACCESSIBILITY_FOCUS_CLEARED);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 触摸浏览时手指移到另一个 label 上
+     *
+     * @param index 手指下的 label，离开 view 时为 {@link #HOST_ID}
+     */
+    void onHover(int index) {
+        if (index == hoveredIndex) {
+            return;
+        }
+        int previous = hoveredIndex;
+        hoveredIndex = index;
+        if (index != HOST_ID) {
+            sendEventForLabel(index, AccessibilityEvent.TYPE_VIEW_HOVER_ENTER);
+        }
+        if (previous != HOST_ID) {
+            sendEventForLabel(previous, AccessibilityEvent.TYPE_VIEW_HOVER_EXIT);
+        }
+    }
+
+    /**
+     * 选中的 label 改变了，例如拖动或点击
+     */
+    void onSelectionChanged(int index) {
+        sendEventForLabel(index, AccessibilityEvent.TYPE_VIEW_SELECTED);
+    }
+
+    private void sendEventForLabel(int index, int eventType) {
+        ViewParent parent = host.getParent();
+        if (parent == null || index < 0 || index >= host.getLabelCount()) {
+            return;
+        }
+        AccessibilityEvent event = AccessibilityEvent.obtain(eventType);
+        event.setSource(host, index);
+        event.setPackageName(host.getContext().getPackageName());
+        event.setClassName(LABEL_CLASS_NAME);
+        event.setEnabled(host.isEnabled());
+        event.setItemCount(host.getLabelCount());
+        event.setCurrentItemIndex(index);
+        event.getText().add(host.getLabelText(index));
+        parent.requestSendAccessibilityEvent(host, event);
+    }
+}
@@ -0,0 +1,90 @@
+package com.ray.widget.lab;
+
+import java.util.ArrayList;
+
+/**
+ * LabelSwitchView 的数据源，按需提供 label 的数量和内容，不需要一次生成所有 label。
+ * 数据改变后调用对应的 notify 方法，view 只重新测量受影响的 label。
+ * label 只使用文字内容，span 等样式会被忽略。
+ */
+public abstract class LabelAdapter {
+
+    interface Observer {
+        void onChanged();
+
+        void onItemRangeChanged(int positionStart, int itemCount);
+
+        void onItemRangeInserted(int positionStart, int itemCount);
+
+        void onItemRangeRemoved(int positionStart, int itemCount);
+    }
+
+    private final ArrayList<Observer> observers = new ArrayList<>();
+    //每次 notify 加一，没有注册 observer 的 view 用它判断期间数据是否变过
+    private int changeCount;
+
+    public abstract int getCount();
+
+    public abstract CharSequence getLabel(int position);
+
+    /**
+     * 不确定哪些 label 改变了，重新测量所有 label
+     */
+    public final void notifyDataSetChanged() {
+        changeCount++;
+        for (int i = observers.size() - 1; i >= 0; i--) {
+            observers.get(i).onChanged();
+        }
+    }
+
+    public final void notifyItemChanged(int position) {
+        notifyItemRangeChanged(position, 1);
+    }
+
+    public final void notifyItemRangeChanged(int positionStart, int itemCount) {
+        changeCount++;
+        for (int i = observers.size() - 1; i >= 0; i--) {
+            observers.get(i).onItemRangeChanged(positionStart, itemCount);
+        }
+    }
+
+    public final void notifyItemInserted(int position) {
+        notifyItemRangeInserted(position, 1);
+    }
+
+    public final void notifyItemRangeInserted(int positionStart, int itemCount) {
+        changeCount++;
+        for (int i = observers.size() - 1; i >= 0; i--) {
+            observers.get(i).onItemRangeInserted(positionStart, itemCount);
+        }
+    }
+
+    public final void notifyItemRemoved(int position) {
+        notifyItemRangeRemoved(position, 1);
+    }
+
+    public final void notifyItemRangeRemoved(int positionStart, int itemCount) {
+        changeCount++;
+        for (int i = observers.size() - 1; i >= 0; i--) {
+            observers.get(i).onItemRangeRemoved(positionStart, itemCount);
+        }
+    }
+
+    int getChangeCount() {
+        return changeCount;
+    }
+
+    boolean hasObservers() {
+        return !observers.isEmpty();
+    }
+
+    void registerObserver(Observer observer) {
+        if (!observers.contains(observer)) {
+            observers.add(observer);
+        }
+    }
+
+    void unregisterObserver(Observer observer) {
+        observers.remove(observer);
+    }
+}
@@ -0,0 +1,439 @@
+package com.ray.widget.lab;
+
+import android.graphics.Paint;
+import android.text.TextPaint;
+
+import java.util.Arrays;
+
+/**
+ * label 的布局缓存，保存每个 label 的文字和文字宽度。
+ * 只在 labels、尺寸、字号或 padding 改变时重新计算，onDraw 只读取缓存。
+ * 除 wrap content 外不会一次测量所有 label，每个 label 第一次被读取时才从 adapter 获取并测量，
+ * label 很多时只有滚动到可见范围内的才会被测量。
+ * adapter 局部变化时只清除受影响的 label，其余的测量结果保留。
+ * 测量结果同时保存在进程共享的 {@link LabelMeasureCache} 中，其他 view 使用相同的 label 时不需要重新测量。
+ * 按文字宽度分配格子时，格子的左边界保存为前缀和数组，点击查找格子是二分查找，绘制时不需要再累加宽度。
+ */
+class LabelLayout {
+
+    private static final float[] EMPTY = new float[0];
+    private static final String[] EMPTY_TEXTS = new String[0];
+    private static final int[] EMPTY_OFFSETS = {0};
+
+    private boolean valid = false;
+    private LabelAdapter adapter;
+    private TextPaint paint;
+    private int left;
+    private int width;
+    private int labelWidth;
+    private int labelPadding;
+    //格子宽度固定或者按最长的 label 决定，内容可以超出 view 的宽度
+    private boolean scrollable;
+    //每个格子的宽度由文字宽度决定，格子位置从 cellOffsets 读取
+    private boolean proportional;
+    private int count;
+    private int elementWidth;
+    //正在绘制的格子宽度，labels 更新的过渡动画中从旧的宽度变化到 elementWidth
+    private int displayElementWidth;
+    private int contentWidth;
+    private int baseline;
+    //测量过的 label 中最宽的，删除 label 后不会变小，只用于估算重绘范围
+    private float maxTextWidth;
+    //从 adapter 获取的文字，还没有获取的为 null
+    private String[] texts = EMPTY_TEXTS;
+    //每个 label 文字的宽度，还没有测量的为 NaN
+    private float[] textWidths = EMPTY;
+    //proportional 时每个格子左边界的前缀和，长度为 count + 1，最后一个是内容的总宽度
+    private int[] cellOffsets = EMPTY_OFFSETS;
+
+    void invalidate() {
+        valid = false;
+    }
+
+    boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * @param left         内容区域的左边界，即 paddingLeft
+     * @param top          内容区域的上边界，即 paddingTop
+     * @param width        内容区域的宽度
+     * @param height       内容区域的高度
+     * @param labelWidth   格子宽度，{@link LabelSwitchView#LABEL_WIDTH_FILL} 时平分内容区域，
+     *                     {@link LabelSwitchView#LABEL_WIDTH_WRAP_CONTENT} 时按最长的 label 决定，
+     *                     {@link LabelSwitchView#LABEL_WIDTH_PROPORTIONAL} 时按每个 label 的文字宽度决定
+     * @param labelPadding wrap content 和 proportional 时文字两侧的留白
+     */
+    void compute(LabelAdapter adapter, TextPaint paint, int left, int top, int width, int height,
+                 int labelWidth, int labelPadding) {
+        this.adapter = adapter;
+        this.paint = paint;
+        this.left = left;
+        this.width = width;
+        this.labelWidth = labelWidth;
+        this.labelPadding = labelPadding;
+        count = adapter == null ? 0 : adapter.getCount();
+        baseline = (int) ((height + Math.abs(LabelMeasureCache.getFontMetrics(paint).ascent)) / 2 + top);
+        if (textWidths.length != count) {
+            texts = new String[count];
+            textWidths = new float[count];
+        } else {
+            Arrays.fill(texts, null);
+        }
+        Arrays.fill(textWidths, Float.NaN);
+        maxTextWidth = 0;
+        scrollable = labelWidth != LabelSwitchView.LABEL_WIDTH_FILL;
+        proportional = labelWidth == LabelSwitchView.LABEL_WIDTH_PROPORTIONAL;
+        measureForWrapContent(0, count);
+        updateGeometry();
+        valid = true;
+    }
+
+    /**
+     * wrap_content 时需要的内容宽度，不包括 padding：固定格子宽度时为 count * labelWidth，
+     * proportional 时为每个 label 的文字宽度加留白之和，其余情况每个格子都要放下最长的 label
+     */
+    static int measureContentWidth(LabelAdapter adapter, TextPaint paint, int labelWidth, int labelPadding) {
+        int count = adapter == null ? 0 : adapter.getCount();
+        if (labelWidth > 0) {
+            return labelWidth * count;
+        }
+        float total = 0;
+        float widest = 0;
+        for (int i = 0; i < count; i++) {
+            CharSequence label = adapter.getLabel(i);
+            float textWidth = LabelMeasureCache.measureText(paint, label == null ? "" : label.toString());
+            total += textWidth + labelPadding * 2;
+            widest = Math.max(widest, textWidth);
+        }
+        if (labelWidth == LabelSwitchView.LABEL_WIDTH_PROPORTIONAL) {
+            return (int) Math.ceil(total);
+        }
+        return count * ((int) Math.ceil(widest) + labelPadding * 2);
+    }
+
+    /**
+     * @return 一行文字的高度，不包括 padding
+     */
+    static int measureContentHeight(TextPaint paint) {
+        Paint.FontMetrics metrics = LabelMeasureCache.getFontMetrics(paint);
+        return (int) Math.ceil(metrics.descent - metrics.ascent);
+    }
+
+    /**
+     * 获取并测量所有 label，用于在后台线程预先计算
+     */
+    void measureAll() {
+        for (int i = 0; i < count; i++) {
+            getTextWidth(i);
+        }
+    }
+
+    /**
+     * 复制预先计算好的布局，数组都会复制，之后两者互不影响
+     *
+     * @param adapter 提供相同 labels 的 adapter
+     * @param paint   和 source 样式相同的 paint，之后 label 变化时用它测量
+     */
+    void copyFrom(LabelLayout source, LabelAdapter adapter, TextPaint paint) {
+        this.adapter = adapter;
+        this.paint = paint;
+        left = source.left;
+        width = source.width;
+        labelWidth = source.labelWidth;
+        labelPadding = source.labelPadding;
+        scrollable = source.scrollable;
+        proportional = source.proportional;
+        count = source.count;
+        elementWidth = source.elementWidth;
+        displayElementWidth = source.elementWidth;
+        contentWidth = source.contentWidth;
+        baseline = source.baseline;
+        maxTextWidth = source.maxTextWidth;
+        texts = source.texts.clone();
+        textWidths = source.textWidths.clone();
+        cellOffsets = source.cellOffsets.clone();
+        updateContentWidth();
+        valid = true;
+    }
+
+    /**
+     * [positionStart, positionStart + itemCount) 的 label 内容改变了
+     */
+    void onItemRangeChanged(int positionStart, int itemCount) {
+        if (!valid) {
+            return;
+        }
+        int end = Math.min(count, positionStart + itemCount);
+        for (int i = positionStart; i < end; i++) {
+            texts[i] = null;
+            textWidths[i] = Float.NaN;
+        }
+        measureForWrapContent(positionStart, end);
+        updateGeometry();
+    }
+
+    void onItemRangeInserted(int positionStart, int itemCount) {
+        if (!valid) {
+            return;
+        }
+        int newCount = count + itemCount;
+        String[] newTexts = new String[newCount];
+        float[] newWidths = new float[newCount];
+        System.arraycopy(texts, 0, newTexts, 0, positionStart);
+        System.arraycopy(textWidths, 0, newWidths, 0, positionStart);
+        System.arraycopy(texts, positionStart, newTexts, positionStart + itemCount, count - positionStart);
+        System.arraycopy(textWidths, positionStart, newWidths, positionStart + itemCount, count - positionStart);
+        Arrays.fill(newWidths, positionStart, positionStart + itemCount, Float.NaN);
+        texts = newTexts;
+        textWidths = newWidths;
+        count = newCount;
+        measureForWrapContent(positionStart, positionStart + itemCount);
+        updateGeometry();
+    }
+
+    void onItemRangeRemoved(int positionStart, int itemCount) {
+        if (!valid) {
+            return;
+        }
+        int newCount = count - itemCount;
+        String[] newTexts = new String[newCount];
+        float[] newWidths = new float[newCount];
+        System.arraycopy(texts, 0, newTexts, 0, positionStart);
+        System.arraycopy(textWidths, 0, newWidths, 0, positionStart);
+        System.arraycopy(texts, positionStart + itemCount, newTexts, positionStart, newCount - positionStart);
+        System.arraycopy(textWidths, positionStart + itemCount, newWidths, positionStart, newCount - positionStart);
+        texts = newTexts;
+        textWidths = newWidths;
+        count = newCount;
+        updateGeometry();
+    }
+
+    /**
+     * wrap content 和 proportional 的格子宽度取决于文字宽度，需要立即测量
+     */
+    private void measureForWrapContent(int start, int end) {
+        if (labelWidth != LabelSwitchView.LABEL_WIDTH_WRAP_CONTENT && !proportional) {
+            return;
+        }
+        for (int i = start; i < end; i++) {
+            measure(i);
+        }
+    }
+
+    private void updateGeometry() {
+        if (proportional) {
+            updateCellOffsets();
+            return;
+        }
+        if (labelWidth > 0) {
+            elementWidth = labelWidth;
+        } else if (scrollable) {
+            //wrap content 时所有 label 都已经测量过，这里只比较缓存的宽度
+            float widest = 0;
+            for (int i = 0; i < count; i++) {
+                widest = Math.max(widest, textWidths[i]);
+            }
+            elementWidth = Math.max(1, (int) Math.ceil(widest) + labelPadding * 2);
+        } else {
+            elementWidth = count == 0 ? width : width / count;
+        }
+        displayElementWidth = elementWidth;
+        updateContentWidth();
+    }
+
+    /**
+     * 每个格子的宽度为文字宽度加两侧留白，总宽度不足 view 的宽度时按比例放大填满，超出时可以滚动
+     */
+    private void updateCellOffsets() {
+        if (cellOffsets.length != count + 1) {
+            cellOffsets = new int[count + 1];
+        }
+        float naturalWidth = 0;
+        for (int i = 0; i < count; i++) {
+            naturalWidth += textWidths[i] + labelPadding * 2;
+        }
+        float scale = naturalWidth > 0 && naturalWidth < width ? width / naturalWidth : 1;
+        float x = 0;
+        for (int i = 0; i < count; i++) {
+            x += (textWidths[i] + labelPadding * 2) * scale;
+            cellOffsets[i + 1] = Math.round(x);
+        }
+        contentWidth = cellOffsets[count];
+        scrollable = contentWidth > width;
+        //格子宽度不统一，过渡动画只移动 thumb
+        elementWidth = 0;
+        displayElementWidth = 0;
+    }
+
+    private void updateContentWidth() {
+        if (proportional) {
+            return;
+        }
+        contentWidth = scrollable ? displayElementWidth * count : width;
+    }
+
+    /**
+     * 过渡动画中临时改变格子宽度，绘制和点击都按这个宽度计算
+     */
+    void setDisplayElementWidth(int width) {
+        displayElementWidth = width;
+        updateContentWidth();
+    }
+
+    /**
+     * 结束过渡，恢复到计算得到的格子宽度
+     */
+    void endTransition() {
+        setDisplayElementWidth(elementWidth);
+    }
+
+    private void measure(int index) {
+        float textWidth = LabelMeasureCache.measureText(paint, getText(index));
+        maxTextWidth = Math.max(maxTextWidth, textWidth);
+        textWidths[index] = textWidth;
+    }
+
+    boolean isScrollable() {
+        return scrollable;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    /**
+     * @return 统一的格子宽度，proportional 时为 0，使用 {@link #getCellWidth(int)}
+     */
+    int getElementWidth() {
+        return displayElementWidth;
+    }
+
+    /**
+     * @return 格子的左边界，内容坐标，不包括 paddingLeft
+     */
+    int getCellLeft(int index) {
+        return proportional ? cellOffsets[index] : displayElementWidth * index;
+    }
+
+    int getCellWidth(int index) {
+        return proportional ? cellOffsets[index + 1] - cellOffsets[index] : displayElementWidth;
+    }
+
+    /**
+     * @return 过渡动画结束后格子的左边界
+     */
+    int getTargetCellLeft(int index) {
+        return proportional ? cellOffsets[index] : elementWidth * index;
+    }
+
+    int getTargetCellWidth(int index) {
+        return proportional ? cellOffsets[index + 1] - cellOffsets[index] : elementWidth;
+    }
+
+    /**
+     * @return x 所在的格子，超出范围时返回第一个或最后一个
+     */
+    int getIndexAt(int x) {
+        if (count == 0) {
+            return 0;
+        }
+        int index;
+        if (proportional) {
+            index = Arrays.binarySearch(cellOffsets, 0, count, x);
+            if (index < 0) {
+                //没有正好落在边界上，取插入位置的前一个格子
+                index = -index - 2;
+            }
+        } else {
+            index = displayElementWidth <= 0 ? 0 : x / displayElementWidth;
+        }
+        return Math.max(0, Math.min(count - 1, index));
+    }
+
+    /**
+     * @return 左边界离 x 最近的格子
+     */
+    int getNearestIndex(int x) {
+        int index = getIndexAt(x);
+        if (index < count - 1 && x - getCellLeft(index) > getCellWidth(index) / 2f) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * thumb 在两个格子之间时，宽度从前一个格子的宽度过渡到后一个格子的宽度
+     *
+     * @param x thumb 的左边界
+     */
+    int getThumbWidthAt(int x) {
+        if (!proportional || count == 0) {
+            return displayElementWidth;
+        }
+        int index = getIndexAt(x);
+        int cellLeft = cellOffsets[index];
+        int cellWidth = cellOffsets[index + 1] - cellLeft;
+        if (index >= count - 1 || x <= cellLeft || cellWidth <= 0) {
+            return cellWidth;
+        }
+        int nextWidth = cellOffsets[index + 2] - cellOffsets[index + 1];
+        float fraction = (float) (x - cellLeft) / cellWidth;
+        return Math.round(cellWidth + (nextWidth - cellWidth) * fraction);
+    }
+
+    /**
+     * @return 过渡动画结束后的格子宽度
+     */
+    int getTargetElementWidth() {
+        return elementWidth;
+    }
+
+    /**
+     * @return 所有格子的总宽度，平分时等于内容区域的宽度
+     */
+    int getContentWidth() {
+        return contentWidth;
+    }
+
+    int getBaseline() {
+        return baseline;
+    }
+
+    float getMaxTextWidth() {
+        return maxTextWidth;
+    }
+
+    String getText(int index) {
+        String text = texts[index];
+        if (text == null) {
+            CharSequence label = adapter.getLabel(index);
+            text = label == null ? "" : label.toString();
+            texts[index] = text;
+        }
+        return text;
+    }
+
+    float getTextWidth(int index) {
+        if (Float.isNaN(textWidths[index])) {
+            measure(index);
+        }
+        return textWidths[index];
+    }
+
+    /**
+     * @return 文字在所在格子内的起点偏移，(cellWidth - textWidth) / 2
+     */
+    float getTextOffset(int index) {
+        return (getCellWidth(index) - getTextWidth(index)) / 2;
+    }
+
+    /**
+     * @return 未选中状态下文字的绘制起点 x，可滚动时是内容坐标
+     */
+    float getTextX(int index) {
+        float x = getCellLeft(index) + left + getTextOffset(index);
+        //平分时文字不能超出 view 的左边界，可滚动时超出的部分会随内容滚入
+        return scrollable ? x : Math.max(0, x);
+    }
+}
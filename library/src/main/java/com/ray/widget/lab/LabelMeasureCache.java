@@ -0,0 +1,146 @@
+package com.ray.widget.lab;
+
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.util.LruCache;
+
+/**
+ * 所有 LabelSwitchView 共享的文字测量缓存。
+ * 以字体、字号、横向缩放、paint flags 和文字为 key 缓存 label 宽度，以字体和字号为 key 缓存 FontMetrics，
+ * 列表中大量使用相同 labels 的 view 绑定时不需要重新测量。
+ * 查找时复用同一个 key 对象，命中时不分配内存；可以在任意线程调用。
+ */
+public final class LabelMeasureCache {
+
+    private static final int MAX_WIDTH_ENTRIES = 2048;
+    private static final int MAX_METRICS_ENTRIES = 32;
+
+    private static final LruCache<Key, Float> sWidths = new LruCache<>(MAX_WIDTH_ENTRIES);
+    private static final LruCache<Key, Paint.FontMetrics> sMetrics = new LruCache<>(MAX_METRICS_ENTRIES);
+    //查找用的 key，只在持有 sLookupKey 的锁时使用
+    private static final Key sLookupKey = new Key();
+
+    private LabelMeasureCache() {
+    }
+
+    /**
+     * 和 {@link Paint#measureText(String)} 的结果相同
+     */
+    static float measureText(Paint paint, String text) {
+        synchronized (sLookupKey) {
+            Float width = sWidths.get(sLookupKey.set(paint, text));
+            if (width != null) {
+                return width;
+            }
+        }
+        float width = paint.measureText(text);
+        sWidths.put(new Key().set(paint, text), width);
+        return width;
+    }
+
+    /**
+     * @return 共享的 FontMetrics，调用方不能修改
+     */
+    static Paint.FontMetrics getFontMetrics(Paint paint) {
+        synchronized (sLookupKey) {
+            Paint.FontMetrics metrics = sMetrics.get(sLookupKey.set(paint, null));
+            if (metrics != null) {
+                return metrics;
+            }
+        }
+        Paint.FontMetrics metrics = new Paint.FontMetrics();
+        paint.getFontMetrics(metrics);
+        sMetrics.put(new Key().set(paint, null), metrics);
+        return metrics;
+    }
+
+    /**
+     * @return 两个 paint 测量同样的文字是否会得到相同的结果
+     */
+    static boolean isSameStyle(Paint a, Paint b) {
+        Typeface typeface = a.getTypeface();
+        return a.getTextSize() == b.getTextSize()
+                && a.getTextScaleX() == b.getTextScaleX()
+                && a.getFlags() == b.getFlags()
+                && (typeface == null ? b.getTypeface() == null : typeface.equals(b.getTypeface()));
+    }
+
+    /**
+     * @return 宽度缓存命中的次数
+     */
+    public static int getHitCount() {
+        return sWidths.hitCount();
+    }
+
+    public static int getMissCount() {
+        return sWidths.missCount();
+    }
+
+    /**
+     * @return 因为超出容量被淘汰的宽度数量
+     */
+    public static int getEvictionCount() {
+        return sWidths.evictionCount();
+    }
+
+    /**
+     * @return 宽度缓存的命中率，还没有查找过时为 0
+     */
+    public static float getHitRate() {
+        int hit = sWidths.hitCount();
+        int total = hit + sWidths.missCount();
+        return total == 0 ? 0 : (float) hit / total;
+    }
+
+    /**
+     * 清空缓存，例如在 onTrimMemory 中调用
+     */
+    public static void clear() {
+        sWidths.evictAll();
+        sMetrics.evictAll();
+    }
+
+    private static final class Key {
+        Typeface typeface;
+        float textSize;
+        float textScaleX;
+        int flags;
+        //为 null 时是 FontMetrics 的 key
+        String text;
+
+        Key set(Paint paint, String text) {
+            typeface = paint.getTypeface();
+            textSize = paint.getTextSize();
+            textScaleX = paint.getTextScaleX();
+            flags = paint.getFlags();
+            this.text = text;
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return textSize == key.textSize
+                    && textScaleX == key.textScaleX
+                    && flags == key.flags
+                    && (typeface == null ? key.typeface == null : typeface.equals(key.typeface))
+                    && (text == null ? key.text == null : text.equals(key.text));
+        }
+
+        @Override
+        public int hashCode() {
+            int result = typeface == null ? 0 : typeface.hashCode();
+            result = 31 * result + Float.floatToIntBits(textSize);
+            result = 31 * result + Float.floatToIntBits(textScaleX);
+            result = 31 * result + flags;
+            result = 31 * result + (text == null ? 0 : text.hashCode());
+            return result;
+        }
+    }
+}
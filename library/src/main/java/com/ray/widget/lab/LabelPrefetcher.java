@@ -0,0 +1,110 @@
+package com.ray.widget.lab;
+
+import android.util.LruCache;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * 在后台线程预先计算即将绑定的 labels，例如在 RecyclerView 的预取或空闲时调用 {@link #prefetch}，
+ * 绑定时用 {@link #get} 取出结果交给 {@link LabelSwitchView#setPrecomputedLabels(PrecomputedLabels)}，
+ * 还没有计算完时返回 null，直接 setLabels 即可。
+ * 结果按 labels 内容和 {@link PrecomputedLabels.Params} 缓存，相同的 labels 只计算一次。
+ */
+public class LabelPrefetcher {
+
+    private final Executor executor;
+    private final LruCache<Key, PrecomputedLabels> cache;
+    //已经提交还没有完成的任务，避免重复计算
+    private final Set<Key> pending = new HashSet<>();
+
+    /**
+     * @param executor 执行计算的线程池
+     * @param maxSize  最多缓存的结果数量
+     */
+    public LabelPrefetcher(Executor executor, int maxSize) {
+        this.executor = executor;
+        this.cache = new LruCache<>(maxSize);
+    }
+
+    /**
+     * 提交后台计算，已经有结果或正在计算时不做任何事。
+     * 计算失败或线程池拒绝执行时不缓存，之后可以重新提交
+     */
+    public void prefetch(CharSequence[] labels, PrecomputedLabels.Params params) {
+        final Key key = new Key(labels, params);
+        synchronized (pending) {
+            if (cache.get(key) != null || !pending.add(key)) {
+                return;
+            }
+        }
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    PrecomputedLabels result = null;
+                    try {
+                        result = PrecomputedLabels.create(key.labels, key.params);
+                    } finally {
+                        synchronized (pending) {
+                            if (result != null) {
+                                cache.put(key, result);
+                            }
+                            pending.remove(key);
+                        }
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            //例如 RejectedExecutionException，任务不会执行
+            synchronized (pending) {
+                pending.remove(key);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return 计算好的结果，还没有计算完或没有提交过时返回 null
+     */
+    public PrecomputedLabels get(CharSequence[] labels, PrecomputedLabels.Params params) {
+        synchronized (pending) {
+            return cache.get(new Key(labels, params));
+        }
+    }
+
+    public void clear() {
+        synchronized (pending) {
+            cache.evictAll();
+        }
+    }
+
+    private static final class Key {
+        final CharSequence[] labels;
+        final PrecomputedLabels.Params params;
+
+        Key(CharSequence[] labels, PrecomputedLabels.Params params) {
+            this.labels = labels;
+            this.params = params;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return params.equals(key.params) && Arrays.equals(labels, key.labels);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(labels) + params.hashCode();
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.ray.widget.lab;
+
+import java.util.Arrays;
+
+/**
+ * 汇总 {@link LabelSwitchView.MetricsListener} 的数据，按分位数查看。
+ * 所有数据保存在固定大小的直方图里，记录时不分配内存，可以在 release 版本中长期开启。
+ * 只能在主线程使用。
+ */
+public class LabelSwitchMetrics implements LabelSwitchView.MetricsListener {
+
+    //默认一帧的时间预算，60fps
+    private static final long DEFAULT_FRAME_BUDGET_NANOS = 16666667L;
+
+    private final Histogram drawTime = new Histogram();
+    private final Histogram dragFrameInterval = new Histogram();
+    private final Histogram touchLatency = new Histogram();
+    private final Histogram settleTime = new Histogram();
+    private final Histogram indexChangeLatency = new Histogram();
+    private final Histogram indexChangeCallbackTime = new Histogram();
+
+    private long frameBudgetNanos = DEFAULT_FRAME_BUDGET_NANOS;
+    private int dragFrameCount;
+    private int overBudgetFrameCount;
+    private int droppedFrameCount;
+
+    /**
+     * @param nanos 一帧的时间预算，90hz、120hz 的屏幕需要相应调小
+     */
+    public void setFrameBudgetNanos(long nanos) {
+        frameBudgetNanos = nanos;
+    }
+
+    @Override
+    public void onDrawFrame(long drawNanos, long frameIntervalNanos, boolean dragging) {
+        drawTime.record(drawNanos);
+        if (!dragging) {
+            return;
+        }
+        dragFrameCount++;
+        if (frameIntervalNanos <= 0) {
+            return;
+        }
+        dragFrameInterval.record(frameIntervalNanos);
+        //两次绘制之间每多隔一帧算丢了一帧，超过 1.5 帧才算超出预算
+        if (frameIntervalNanos * 2 > frameBudgetNanos * 3) {
+            overBudgetFrameCount++;
+            droppedFrameCount += Math.max(1, Math.round((double) frameIntervalNanos / frameBudgetNanos) - 1);
+        }
+    }
+
+    @Override
+    public void onTouchLatency(long nanos) {
+        touchLatency.record(nanos);
+    }
+
+    @Override
+    public void onSettle(long nanos) {
+        settleTime.record(nanos);
+    }
+
+    @Override
+    public void onIndexChangeDelivered(int delivery, long latencyNanos, long callbackNanos) {
+        indexChangeLatency.record(latencyNanos);
+        indexChangeCallbackTime.record(callbackNanos);
+    }
+
+    /**
+     * @return 每次 onDraw 的耗时
+     */
+    public Histogram getDrawTime() {
+        return drawTime;
+    }
+
+    /**
+     * @return 拖动中相邻两次绘制的间隔
+     */
+    public Histogram getDragFrameInterval() {
+        return dragFrameInterval;
+    }
+
+    /**
+     * @return 按下到 thumb 第一次移动的时间
+     */
+    public Histogram getTouchLatency() {
+        return touchLatency;
+    }
+
+    /**
+     * @return 松手到 thumb 停在格子上的时间
+     */
+    public Histogram getSettleTime() {
+        return settleTime;
+    }
+
+    /**
+     * @return index 变化到 listener 被回调的延迟，coalesced 和 settled 的 listener 会晚于变化
+     */
+    public Histogram getIndexChangeLatency() {
+        return indexChangeLatency;
+    }
+
+    /**
+     * @return 一次分发中所有 listener 的耗时
+     */
+    public Histogram getIndexChangeCallbackTime() {
+        return indexChangeCallbackTime;
+    }
+
+    public int getDragFrameCount() {
+        return dragFrameCount;
+    }
+
+    /**
+     * @return 拖动中和上一次绘制的间隔超过 1.5 帧的次数
+     */
+    public int getOverBudgetFrameCount() {
+        return overBudgetFrameCount;
+    }
+
+    /**
+     * @return 按绘制间隔估算的拖动中丢掉的帧数
+     */
+    public int getDroppedFrameCount() {
+        return droppedFrameCount;
+    }
+
+    public void reset() {
+        drawTime.reset();
+        dragFrameInterval.reset();
+        touchLatency.reset();
+        settleTime.reset();
+        indexChangeLatency.reset();
+        indexChangeCallbackTime.reset();
+        dragFrameCount = 0;
+        overBudgetFrameCount = 0;
+        droppedFrameCount = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "draw=" + drawTime
+                + " dragInterval=" + dragFrameInterval
+                + " touchLatency=" + touchLatency
+                + " settle=" + settleTime
+                + " indexChangeLatency=" + indexChangeLatency
+                + " indexChangeCallback=" + indexChangeCallbackTime
+                + " dragFrames=" + dragFrameCount
+                + " overBudget=" + overBudgetFrameCount
+                + " dropped=" + droppedFrameCount;
+    }
+
+    /**
+     * 以微秒为单位的对数直方图：64 微秒以内精确记录，更大的值每个 2 的幂次分成 32 个桶，
+     * 相对误差不超过 1/32，最大约 35 分钟，内存固定不到 4KB。
+     */
+    public static class Histogram {
+
+        private static final int SUB_BUCKET_BITS = 5;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        //小于这个值的按 1 微秒一个桶精确记录
+        private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+        private static final long MAX_MICROS = Integer.MAX_VALUE;
+        private static final int BUCKET_COUNT = bucketOf(MAX_MICROS) + 1;
+
+        private final int[] counts = new int[BUCKET_COUNT];
+        private int count;
+        private long sumMicros;
+        private long maxMicros;
+
+        void record(long nanos) {
+            long micros = Math.min(MAX_MICROS, Math.max(0, nanos / 1000));
+            counts[bucketOf(micros)]++;
+            count++;
+            sumMicros += micros;
+            maxMicros = Math.max(maxMicros, micros);
+        }
+
+        void reset() {
+            Arrays.fill(counts, 0);
+            count = 0;
+            sumMicros = 0;
+            maxMicros = 0;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * @return 平均值，单位纳秒
+         */
+        public long getMeanNanos() {
+            return count == 0 ? 0 : sumMicros * 1000 / count;
+        }
+
+        /**
+         * @return 最大值，单位纳秒
+         */
+        public long getMaxNanos() {
+            return maxMicros * 1000;
+        }
+
+        /**
+         * @param percentile 0 到 100
+         * @return 不小于 percentile% 样本的值，单位纳秒，取所在桶的上界；没有数据时返回 0
+         */
+        public long getPercentileNanos(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(maxMicros, upperBoundOf(i)) * 1000;
+                }
+            }
+            return maxMicros * 1000;
+        }
+
+        @Override
+        public String toString() {
+            return "{n=" + count
+                    + " p50=" + getPercentileNanos(50) / 1000
+                    + "us p90=" + getPercentileNanos(90) / 1000
+                    + "us p99=" + getPercentileNanos(99) / 1000
+                    + "us max=" + maxMicros + "us}";
+        }
+
+        static int bucketOf(long micros) {
+            if (micros < LINEAR_LIMIT) {
+                return (int) micros;
+            }
+            int shift = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+            int subBucket = (int) (micros >> shift) - SUB_BUCKETS;
+            return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + subBucket;
+        }
+
+        static long upperBoundOf(int bucket) {
+            if (bucket < LINEAR_LIMIT) {
+                return bucket;
+            }
+            int shift = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+            long subBucket = (bucket - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+            return ((subBucket + 1) << shift) - 1;
+        }
+    }
+}
@@ -3,18 +3,29 @@ package com.ray.widget.lab;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
+import android.graphics.Color;
 import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.os.Parcel;
+import android.os.Parcelable;
 import android.text.TextPaint;
 import android.text.TextUtils;
 import android.util.AttributeSet;
-import android.view.GestureDetector;
+import android.util.TypedValue;
 import android.view.MotionEvent;
+import android.view.VelocityTracker;
 import android.view.View;
-import android.view.animation.DecelerateInterpolator;
-import android.widget.Scroller;
+import android.view.ViewConfiguration;
+import android.view.ViewParent;
+import android.view.accessibility.AccessibilityManager;
+import android.view.accessibility.AccessibilityNodeProvider;
+
+import java.util.Arrays;
 
 public class LabelSwitchView extends View {
 
@@ -22,46 +33,198 @@ public class LabelSwitchView extends View {
         void onIndexChange(int oldIndex, int newIndex);
     }
 
+    /**
+     * 性能数据的回调，都在主线程调用，时间单位为纳秒。
+     * 可以直接使用 {@link LabelSwitchMetrics} 按分位数汇总。
+     */
+    public interface MetricsListener {
+        /**
+         * @param drawNanos          onDraw 的耗时
+         * @param frameIntervalNanos 拖动中和上一次绘制的间隔，不在拖动或拖动后的第一帧为 0
+         * @param dragging           是否在拖动中
+         */
+        void onDrawFrame(long drawNanos, long frameIntervalNanos, boolean dragging);
+
+        /**
+         * 按下到 thumb 第一次移动的时间，包括拖动和点击后的动画，thumb 没有因为这次触摸移动时不回调
+         */
+        void onTouchLatency(long nanos);
+
+        /**
+         * 松手到 thumb 停在选中的格子上的时间，只在松手后播放了 thumb 动画时回调
+         */
+        void onSettle(long nanos);
+
+        /**
+         * @param delivery       {@link #DELIVERY_IMMEDIATE}、{@link #DELIVERY_COALESCED} 或 {@link #DELIVERY_SETTLED}
+         * @param latencyNanos   index 第一次变化到开始回调的延迟
+         * @param callbackNanos  这次分发中所有 listener 的耗时
+         */
+        void onIndexChangeDelivered(int delivery, long latencyNanos, long callbackNanos);
+    }
+
+    /**
+     * 每次 index 变化都立即回调，拖动经过几个格子就回调几次
+     */
+    public static final int DELIVERY_IMMEDIATE = 0;
+    /**
+     * 同一帧内的多次变化合并成一次回调
+     */
+    public static final int DELIVERY_COALESCED = 1;
+    /**
+     * thumb 停下后只回调一次，参数为开始移动前的 index 和最终的 index
+     */
+    public static final int DELIVERY_SETTLED = 2;
+
+    /**
+     * 所有格子平分 view 的宽度，不能滚动
+     */
+    public static final int LABEL_WIDTH_FILL = 0;
+    /**
+     * 格子宽度由最长的 label 加上两侧的 labelPadding 决定，超出 view 宽度时可以滚动
+     */
+    public static final int LABEL_WIDTH_WRAP_CONTENT = -2;
+    /**
+     * 每个格子的宽度为各自的文字宽度加上两侧的 labelPadding，
+     * 总宽度不足 view 的宽度时按比例放大，超出时可以滚动，thumb 滑动时宽度在两个格子之间过渡
+     */
+    public static final int LABEL_WIDTH_PROPORTIONAL = -3;
+
     private static final String TAG = "LabelSwitchView";
 
     private static final int INVALID_ID = -1;
-    //adjust 时间
-    private static final int SELECTOR_ADJUSTMENT_DURATION_MILLIS = 800;
+    //thumb 的绘制方式，根据 selectedBackground 和 thumbColor 自动选择开销最小的一种
+    private static final int THUMB_NONE = 0;
+    //普通位图资源（BitmapDrawable），解码成 bitmap 后从 ThumbBitmapPool 共享
+    private static final int THUMB_BITMAP = 1;
+    //.9 图、shape、vector 等其他 drawable，直接 draw，不转成 bitmap
+    private static final int THUMB_DRAWABLE = 2;
+    //纯色圆角矩形，只用 Paint 绘制，不需要任何资源
+    private static final int THUMB_PAINT = 3;
     private static final int DEFAULT_NORMAL_COLOR = 0xFF888888;
     private static final int DEFAULT_SELECTED_COLOR = 0xFF0000FF;
     private static final int DEFAULT_TEXT_SIZE = 16;//sp
     private static final int DEFAULT_DRAG_OUT_DIST = 10;//dp
     private static final boolean DEFAULT_SHOW_RELATIVE = false;
+    //和 attrs 中 swipeRelativeEffect 的 enum 对应
+    private static final int RELATIVE_EFFECT_SLIDE_FADE = 0;
+    private static final int RELATIVE_EFFECT_FADE = 1;
+    private static final int RELATIVE_EFFECT_SLIDE = 2;
+    private static final int RELATIVE_EFFECT_SCALE = 3;
+    private static final int RELATIVE_EFFECT_COLOR = 4;
+    private static final boolean DEFAULT_TEXT_ATLAS = false;
+    private static final boolean DEFAULT_STATIC_LAYER = false;
+    private static final int DEFAULT_FLING_MIN_DISTANCE = 10;//dp
+    //和 ViewPager 相同，系统的最小 fling 速度只有约 50dp/s，稍慢的松手也会被当作 fling 多走一格
+    private static final int DEFAULT_FLING_MIN_VELOCITY = 400;//dp/s
+    //fling 时速度按 e^(-friction·t) 衰减，滑行距离为 velocity / friction
+    private static final float DEFAULT_FLING_FRICTION = 5f;
+    private static final int DEFAULT_LABEL_PADDING = 12;//dp
+    //labels 更新的过渡动画的进度范围，layoutAnimator 从 0 运动到这个值
+    private static final int LAYOUT_TRANSITION_RANGE = 1000;
 
-    private int mElementWidth;
-    private int textPaddingTop;
-    private String[] labels;
+    //label 布局缓存，绘制时只读取，尺寸、labels、字号或 padding 改变时失效
+    private LabelLayout labelLayout;
+    //无障碍服务第一次查询时才创建
+    private LabelAccessibilityProvider accessibilityProvider;
+    private AccessibilityManager accessibilityManager;
+    //上一次 measure 时宽高是否都是 EXACTLY，是的话 labels 和字号改变不影响 view 的尺寸
+    private boolean measuredExactly = false;
+    //恢复状态时保存的内容滚动位置，布局后才能生效，没有时为 -1
+    private int restoredContentScrollX = -1;
+    //setPrecomputedLabels 设置的结果，尺寸和样式一致时直接复制，不再测量
+    private PrecomputedLabels precomputedLabels;
+    //label 数据源，setLabels 时包装成 ArrayLabelAdapter
+    private LabelAdapter adapter;
+    private AdapterObserver adapterObserver;
+    //只在 attach 期间注册，避免 adapter 持有没有显示的 view
+    private boolean isObservingAdapter = false;
+    private boolean isAttached = false;
+    //最后一次同步时 adapter 的 changeCount，没有注册期间 adapter 变了就不相等
+    private int adapterChangeCount;
     private int selectedIndex;
     private int normalColor, selectedColor;
     private int labelTextSize;
+    //格子宽度，大于 0 或 LABEL_WIDTH_WRAP_CONTENT 时内容可以横向滚动
+    private int labelWidth;
+    private int labelPadding;
+    //内容的横向滚动距离，只在可滚动时不为 0
+    private int contentScrollX;
+    //上一次绘制时的滚动距离，滚动后需要重绘整个 view
+    private int drawnContentScrollX;
     //选中的thumb的背景id，当背景bitmap为空时，从这个id加载图片
     private int selectedBgResId;
-    //选中的thumb的背景，用于防止每次都重新加载
-    private Bitmap selectedBg;
+    //选中的thumb的背景，按格子下标保存，从 ThumbBitmapPool 获取，多个 view 共用。
+    //labels、尺寸或背景改变时在绘制之外准备好，拖动经过宽度不同的格子时只按下标读取
+    private Bitmap[] selectedBgs = new Bitmap[0];
+    private boolean selectedBgsValid = false;
+    //位图资源的原始高度，wrap_content 时 view 不低于它
+    private int selectedBgIntrinsicHeight;
+    //上一次绘制时 thumb 影响的水平范围，用于计算需要重绘的区域
+    private int drawnThumbLeft, drawnThumbRight;
+    private boolean hasDrawnThumb = false;
+    private int thumbMode;
+    //THUMB_DRAWABLE 模式下的背景，只在位置或尺寸改变时 setBounds
+    private Drawable thumbDrawable;
+    //THUMB_PAINT 模式下的颜色和圆角
+    private int thumbColor;
+    private float thumbCornerRadius;
+    private int thumbDrawableLeft, thumbDrawableRight, thumbDrawableBottom;
+    private RectF thumbRect = new RectF();
     //当前thumb的x轴偏移量
     private int mCurrentOffsetX;
-    private int mPreviousScrollerX;
     private boolean hasLabelChanged = false;
     private boolean showSwipeRelative;
+    private RelativeTextRenderer relativeTextRenderer;
+    //是否使用预先生成的 label 图层绘制文字，label 很多时每帧只需要画两次 bitmap
+    private boolean useTextAtlas;
+    private LabelTextAtlas textAtlas;
+    //拖动和回弹时 normal 颜色的 label 录制成 Picture 回放
+    private boolean useStaticLayer;
+    private StaticLabelLayer staticLayer;
 
     //大力拖动的时候，最大能拖出边界的距离
     private int dragOutDist;
 
-    private int threshold;
+    //系统的 touch slop，横向移动超过它才开始拖动，纵向超过它则整个手势交给父 view
+    private int touchSlop;
     private float[] initPointLocation = new float[2];
+    private float lastTouchX;
     private boolean isDragging = false;
-    private GestureDetector gestureDetector;
-    private Scroller mAdjustScroller;
+    //手势先在纵向超过了 touch slop，剩下的事件都不处理
+    private boolean isVerticalGesture = false;
+    //拖到头之后继续往外拖的距离，超过 dragOutDist 交给父 view
+    private int overDragX;
+    //已经把拖动交给了父 view
+    private boolean isHandedOff = false;
+    //按下时是否按在 thumb 上，只有按在 thumb 上才能拖动，否则可滚动时拖动的是内容
+    private boolean thumbInTouch = false;
+    //松手或点击后 thumb 回到选中格子的动画
+    private ThumbAnimator thumbAnimator;
+    //可滚动时拖动内容后的 fling 动画
+    private ThumbAnimator contentAnimator;
+    //updateLabels 后格子宽度和 thumb 一起过渡到新位置的动画
+    private ThumbAnimator layoutAnimator;
+    private int transitionFromWidth, transitionFromOffsetX;
+    private VelocityTracker velocityTracker;
+    //松手时速度和拖动距离都超过阈值才算 fling，单位 px/s 和 px
+    private int flingMinVelocity, flingMaxVelocity;
+    private int flingMinDistance;
+    private float flingFriction;
 
     private TextPaint textPaint;
     private Paint bgPatient;
+    private Paint thumbPaint;
 
     private OnIndexChangeListener mOnIndexChangeListener;
+    //为 null 时不做任何计时
+    private MetricsListener metricsListener;
+    private FrameClock frameClock = FrameClock.CHOREOGRAPHER;
+    //按下和松手的时间，统计完成后归 0
+    private long touchDownNanos, touchUpNanos;
+    //拖动中上一次绘制的时间
+    private long lastDragDrawNanos;
+    private IndexChangeDispatcher indexChangeDispatcher;
 
     public LabelSwitchView(Context context) {
         this(context, null);
@@ -74,243 +237,493 @@ public class LabelSwitchView extends View {
     public LabelSwitchView(Context context, AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
 
-        this.gestureDetector = new GestureDetector(getContext(),
-                new TouchGestureListener());
-        mAdjustScroller = new Scroller(getContext(), new DecelerateInterpolator(2.5f));
+        thumbAnimator = new ThumbAnimator(new ThumbAnimatorListener());
+        contentAnimator = new ThumbAnimator(new ContentAnimatorListener());
+        layoutAnimator = new ThumbAnimator(new LayoutAnimatorListener());
+        indexChangeDispatcher = new IndexChangeDispatcher();
         textPaint = new TextPaint();
         bgPatient = new Paint();
+        thumbPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        labelLayout = new LabelLayout();
+        textAtlas = new LabelTextAtlas();
+        staticLayer = new StaticLabelLayer();
+        relativeTextRenderer = new RelativeTextRenderer();
 
         TypedArray typedArray = context.obtainStyledAttributes(attrs, R.styleable.LabelSwitchView);
         normalColor = typedArray.getColor(R.styleable.LabelSwitchView_normalColor, DEFAULT_NORMAL_COLOR);
         selectedColor = typedArray.getColor(R.styleable.LabelSwitchView_selectedColor, DEFAULT_SELECTED_COLOR);
         labelTextSize = typedArray.getDimensionPixelSize(R.styleable.LabelSwitchView_labelTextSize, DisplayUtil.sp2px(context, DEFAULT_TEXT_SIZE));
         selectedBgResId = typedArray.getResourceId(R.styleable.LabelSwitchView_selectedBackground, INVALID_ID);
+        thumbColor = typedArray.getColor(R.styleable.LabelSwitchView_thumbColor, Color.TRANSPARENT);
+        thumbCornerRadius = typedArray.getDimension(R.styleable.LabelSwitchView_thumbCornerRadius, 0);
         dragOutDist = typedArray.getDimensionPixelSize(R.styleable.LabelSwitchView_dragOutDist, DisplayUtil.dip2px(context, DEFAULT_DRAG_OUT_DIST));
         showSwipeRelative = typedArray.getBoolean(R.styleable.LabelSwitchView_showSwipeRelative, DEFAULT_SHOW_RELATIVE);
+        relativeTextRenderer.setEffect(getRelativeTextEffect(
+                typedArray.getInt(R.styleable.LabelSwitchView_swipeRelativeEffect, RELATIVE_EFFECT_SLIDE_FADE)));
+        useTextAtlas = typedArray.getBoolean(R.styleable.LabelSwitchView_textAtlas, DEFAULT_TEXT_ATLAS);
+        useStaticLayer = typedArray.getBoolean(R.styleable.LabelSwitchView_staticLayer, DEFAULT_STATIC_LAYER);
+        ViewConfiguration configuration = ViewConfiguration.get(context);
+        flingMinVelocity = typedArray.getDimensionPixelSize(R.styleable.LabelSwitchView_flingMinVelocity, DisplayUtil.dip2px(context, DEFAULT_FLING_MIN_VELOCITY));
+        flingMaxVelocity = configuration.getScaledMaximumFlingVelocity();
+        touchSlop = configuration.getScaledTouchSlop();
+        flingMinDistance = typedArray.getDimensionPixelSize(R.styleable.LabelSwitchView_flingMinDistance, DisplayUtil.dip2px(context, DEFAULT_FLING_MIN_DISTANCE));
+        flingFriction = typedArray.getFloat(R.styleable.LabelSwitchView_flingFriction, DEFAULT_FLING_FRICTION);
+        labelWidth = checkLabelWidth(typedArray.getLayoutDimension(R.styleable.LabelSwitchView_labelWidth, LABEL_WIDTH_FILL));
+        labelPadding = typedArray.getDimensionPixelSize(R.styleable.LabelSwitchView_labelPadding, DisplayUtil.dip2px(context, DEFAULT_LABEL_PADDING));
         CharSequence[] entries = typedArray.getTextArray(R.styleable.LabelSwitchView_labels);
+        adapterObserver = new AdapterObserver();
         if (entries != null) {
-            labels = new String[entries.length];
-            for (int i = 0; i < entries.length; i++) {
-                labels[i] = entries[i].toString();
-            }
+            attachAdapter(new ArrayLabelAdapter(entries));
         }
         typedArray.recycle();
 
         initArgs();
         textPaint.setTextSize(labelTextSize);
+        resolveThumbMode();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            setNestedScrollingEnabled(true);
+        }
+    }
+
+    private void resolveThumbMode() {
+        releaseSelectedBg();
+        selectedBgIntrinsicHeight = 0;
+        if (thumbDrawable != null) {
+            thumbDrawable.setCallback(null);
+            thumbDrawable = null;
+        }
+        if (selectedBgResId == INVALID_ID) {
+            thumbMode = Color.alpha(thumbColor) == 0 ? THUMB_NONE : THUMB_PAINT;
+            return;
+        }
+        TypedValue value = new TypedValue();
+        getResources().getValue(selectedBgResId, value, true);
+        if (value.type >= TypedValue.TYPE_FIRST_COLOR_INT && value.type <= TypedValue.TYPE_LAST_COLOR_INT) {
+            //背景是一个颜色，用 Paint 直接画
+            thumbColor = value.data;
+            thumbMode = THUMB_PAINT;
+        } else {
+            //按 drawable 的类型选择，.9 图不能当作普通 bitmap 整体缩放
+            Drawable drawable = getResources().getDrawable(selectedBgResId);
+            if (drawable instanceof BitmapDrawable) {
+                thumbMode = THUMB_BITMAP;
+                selectedBgIntrinsicHeight = drawable.getIntrinsicHeight();
+            } else {
+                thumbDrawable = drawable.mutate();
+                thumbDrawable.setCallback(this);
+                thumbDrawableLeft = Integer.MIN_VALUE;
+                thumbMode = THUMB_DRAWABLE;
+            }
+        }
+        thumbPaint.setColor(thumbColor);
     }
 
     private void initArgs() {
         selectedIndex = 0;
         mCurrentOffsetX = 0;
-        mPreviousScrollerX = 0;
-        threshold = DisplayUtil.dip2px(getContext(), 5);
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
-        if (labels == null) {
+        if (metricsListener == null) {
+            drawContent(canvas);
+            return;
+        }
+        long start = System.nanoTime();
+        drawContent(canvas);
+        long drawNanos = System.nanoTime() - start;
+        long interval = 0;
+        if (isDragging) {
+            interval = lastDragDrawNanos == 0 ? 0 : start - lastDragDrawNanos;
+            lastDragDrawNanos = start;
+        } else {
+            lastDragDrawNanos = 0;
+        }
+        metricsListener.onDrawFrame(drawNanos, interval, isDragging);
+    }
+
+    private void drawContent(Canvas canvas) {
+        if (getLabelCount() == 0) {
             return;
         }
+        if (isTextAtlasUsable() && drawWithAtlas(canvas)) {
+            return;
+        }
+        int saveCount = -1;
+        if (ensureLabelLayout().isScrollable()) {
+            //滚动时格子会移到 padding 区域，裁剪掉
+            saveCount = canvas.save();
+            canvas.clipRect(getPaddingLeft(), 0, getWidth() - getPaddingRight(), getHeight());
+        }
         drawLabelText(canvas);
         drawSelectedBg(canvas);
         if (showSwipeRelative) {
             drawRelativeText(canvas);
         }
         drawSelectedText(canvas);
+        if (saveCount != -1) {
+            canvas.restoreToCount(saveCount);
+        }
+        recordDrawnThumb();
     }
 
-    private void drawLabelText(Canvas canvas) {
-        int labelWidth = getElementWidth();
-        float paddingTop = getTextPaddingTop();
-        for (int i = 0; i < labels.length; i++) {
-            textPaint.setColor(normalColor);
-            String text = labels[i];
-            float paddingLeft = labelWidth * i + (labelWidth - textPaint.measureText(text)) / 2 + getPaddingLeft();
-            paddingLeft = Math.max(0, paddingLeft);
-            canvas.drawText(text, paddingLeft, paddingTop, textPaint);
+    /**
+     * label 图层是按 view 的大小生成的，可滚动时不能使用；
+     * 布局过渡中格子宽度每帧都在变，逐个 drawText，过渡结束后按新的宽度重新生成
+     */
+    private boolean isTextAtlasUsable() {
+        return useTextAtlas && !ensureLabelLayout().isScrollable() && !layoutAnimator.isRunning();
+    }
+
+    /**
+     * 使用 label 图层绘制，selected 层裁剪到 thumb 的区域，不需要再单独绘制 selected 和 relative text
+     *
+     * @return 图层不可用时返回 false，退回逐个 drawText
+     */
+    private boolean drawWithAtlas(Canvas canvas) {
+        LabelLayout layout = ensureLabelLayout();
+        if (!textAtlas.ensure(layout, textPaint, normalColor, selectedColor, getWidth(), getHeight())) {
+            return false;
         }
+        textAtlas.drawNormal(canvas, bgPatient);
+        drawSelectedBg(canvas);
+        float left = getThumbLeft();
+        textAtlas.drawSelected(canvas, bgPatient, left, getPaddingTop(),
+                left + getThumbWidth(), getHeight() - getPaddingBottom());
+        recordDrawnThumb();
+        return true;
     }
 
-    private void drawSelectedBg(Canvas canvas) {
-        if (selectedBgResId == INVALID_ID && selectedBg == null) {
+    private void drawLabelText(Canvas canvas) {
+        if (shouldUseStaticLayer(canvas)) {
+            LabelLayout layout = ensureLabelLayout();
+            if (!staticLayer.isValid(contentScrollX, layout.getElementWidth(), normalColor)) {
+                drawLabelTextDirectly(staticLayer.beginRecording(getWidth(), getHeight()));
+                staticLayer.endRecording(contentScrollX, layout.getElementWidth(), normalColor);
+            }
+            staticLayer.draw(canvas);
             return;
         }
-        if (selectedBg == null) {
-            BitmapFactory.Options options = new BitmapFactory.Options();
-            options.inJustDecodeBounds = true;
-            options.outWidth = getElementWidth();
-            options.outHeight = getHeight();
-            selectedBg = BitmapFactory.decodeResource(getResources(), selectedBgResId, options);
-            if (selectedBg == null) {
-                Drawable drawable = getResources().getDrawable(selectedBgResId);
-                selectedBg = Utils.drawableToBitmap(drawable, getElementWidth(), getHeight() - getPaddingTop() - getPaddingBottom());
-            }
+        drawLabelTextDirectly(canvas);
+    }
+
+    /**
+     * 只在 thumb 移动而 label 不动时使用 Picture：静止时每次绘制都是因为内容变了，
+     * 内容在滚动时每帧都要重新录制，反而多一次开销
+     */
+    private boolean shouldUseStaticLayer(Canvas canvas) {
+        if (!useStaticLayer || !StaticLabelLayer.canDraw(canvas)) {
+            return false;
+        }
+        if (!isDragging && !thumbAnimator.isRunning()) {
+            return false;
         }
-        canvas.drawBitmap(selectedBg, mCurrentOffsetX + getPaddingLeft(), getPaddingTop(), bgPatient);
+        return contentScrollX == drawnContentScrollX && !layoutAnimator.isRunning();
     }
 
-    private void drawSelectedText(Canvas canvas) {
-        String selectedText = labels[selectedIndex];
-        float paddingTop = getTextPaddingTop();
-        float paddingLeft = mCurrentOffsetX + (getElementWidth() - textPaint.measureText(selectedText)) / 2 + getPaddingLeft();
-        textPaint.setColor(selectedColor);
-        canvas.drawText(selectedText, paddingLeft, paddingTop, textPaint);
+    private void drawLabelTextDirectly(Canvas canvas) {
+        LabelLayout layout = ensureLabelLayout();
+        float paddingTop = layout.getBaseline();
+        textPaint.setColor(normalColor);
+        int last = getLastVisibleIndex();
+        for (int i = getFirstVisibleIndex(); i <= last; i++) {
+            canvas.drawText(layout.getText(i), layout.getTextX(i) - contentScrollX, paddingTop, textPaint);
+        }
     }
 
-    private void drawRelativeText(Canvas canvas) {
-        drawRelativeTextL(canvas);//绘制左侧relative text
-        drawRelativeTextR(canvas);//绘制右侧relative text
+    /**
+     * 可滚动时只绘制和测量可见的 label，多算一格给超出格子的文字
+     */
+    int getFirstVisibleIndex() {
+        LabelLayout layout = ensureLabelLayout();
+        if (!layout.isScrollable()) {
+            return 0;
+        }
+        return Math.max(0, layout.getIndexAt(contentScrollX) - 1);
     }
 
-    private void drawRelativeTextL(Canvas canvas) {
-        String relativeText;
-        relativeText = getRelativeTextL();
-        if (TextUtils.isEmpty(relativeText)) {
-            return;
+    int getLastVisibleIndex() {
+        LabelLayout layout = ensureLabelLayout();
+        if (!layout.isScrollable()) {
+            return layout.getCount() - 1;
         }
-        float relativeOff = getRelativeOffsetL(relativeText);
-        if (relativeOff == -1) {
-            return;
+        int right = contentScrollX + getViewportWidth();
+        return Math.min(layout.getCount() - 1, layout.getIndexAt(right) + 1);
+    }
+
+    private void drawSelectedBg(Canvas canvas) {
+        switch (thumbMode) {
+            case THUMB_BITMAP:
+                drawThumbBitmap(canvas);
+                break;
+            case THUMB_DRAWABLE:
+                drawThumbDrawable(canvas);
+                break;
+            case THUMB_PAINT:
+                drawThumbPaint(canvas);
+                break;
+            default:
+                break;
         }
-        float paddingTop = getTextPaddingTop();
-        float paddingLeft = mCurrentOffsetX + relativeOff + getPaddingLeft();
-        textPaint.setColor(selectedColor);
-        float textWidth = textPaint.measureText(relativeText);
-        float temp = (getElementWidth() - textWidth) / 2;
-        float offsetRate = Math.abs((temp - relativeOff) / textWidth);
-        if (offsetRate == 0) {
-            //offsetRate为0时，说明没有移动
-            //此时relative text应该不显示
-            return;
+    }
+
+    private void drawThumbDrawable(Canvas canvas) {
+        int left = getThumbLeft();
+        int right = left + getThumbWidth();
+        int bottom = getHeight() - getPaddingBottom();
+        if (left != thumbDrawableLeft || right != thumbDrawableRight || bottom != thumbDrawableBottom) {
+            thumbDrawableLeft = left;
+            thumbDrawableRight = right;
+            thumbDrawableBottom = bottom;
+            thumbDrawable.setBounds(left, getPaddingTop(), right, bottom);
         }
-        int alpha = (int) Math.abs((1 - offsetRate) * 255) / 2;
-        textPaint.setAlpha(alpha);
-        canvas.drawText(relativeText, paddingLeft, paddingTop, textPaint);
-        textPaint.setAlpha(255);
+        thumbDrawable.draw(canvas);
     }
 
-    private void drawRelativeTextR(Canvas canvas) {
-        String relativeText;
-        relativeText = getRelativeTextR();
-        if (TextUtils.isEmpty(relativeText)) {
-            return;
+    private void drawThumbPaint(Canvas canvas) {
+        float left = getThumbLeft();
+        thumbRect.set(left, getPaddingTop(), left + getThumbWidth(), getHeight() - getPaddingBottom());
+        canvas.drawRoundRect(thumbRect, thumbCornerRadius, thumbCornerRadius, thumbPaint);
+    }
+
+    private void drawThumbBitmap(Canvas canvas) {
+        if (!selectedBgsValid) {
+            //布局和 labels 改变时已经准备好，只有 detach 后第一次绘制等情况会走到这里
+            prepareSelectedBgs();
         }
-        float relativeOff = getRelativeOffsetR(relativeText);
-        if (relativeOff == -1) {
+        Bitmap selectedBg = selectedIndex < selectedBgs.length ? selectedBgs[selectedIndex] : null;
+        if (selectedBg == null) {
             return;
         }
-        float paddingTop = getTextPaddingTop();
-        float paddingLeft = mCurrentOffsetX + relativeOff + getPaddingLeft();
-        textPaint.setColor(selectedColor);
-        float textWidth = textPaint.measureText(relativeText);
-        float temp = (getElementWidth() - textWidth) / 2;
-        float offsetRate = Math.abs((temp - relativeOff) / textWidth);
-        if (offsetRate == 0) {
-            //offsetRate为0时，说明没有移动
-            //此时relative text应该不显示
+        //按选中格子最终的宽度加载，thumb 宽度变化时缩放绘制
+        int thumbWidth = getThumbWidth();
+        if (selectedBg.getWidth() != thumbWidth) {
+            float left = getThumbLeft();
+            thumbRect.set(left, getPaddingTop(), left + thumbWidth, getHeight() - getPaddingBottom());
+            canvas.drawBitmap(selectedBg, null, thumbRect, bgPatient);
             return;
         }
-        int alpha = (int) Math.abs((1 - offsetRate) * 255) / 2;
-        textPaint.setAlpha(alpha);
-        canvas.drawText(relativeText, paddingLeft, paddingTop, textPaint);
-        textPaint.setAlpha(255);
+        canvas.drawBitmap(selectedBg, getThumbLeft(), getPaddingTop(), bgPatient);
     }
 
-    private String getRelativeTextL() {
-        float curIndexLeftEdge = selectedIndex * getElementWidth();
-        if (curIndexLeftEdge > mCurrentOffsetX) {
-            return labels[Math.max(0, selectedIndex - 1)];
-        } else {
-            return labels[selectedIndex];
+    /**
+     * 按每个格子最终的尺寸从 ThumbBitmapPool 获取 thumb 背景，宽度相同的格子共用同一张，
+     * 在布局、labels 或背景改变时调用，onDraw 中不再拼接 key 或解码
+     */
+    private void prepareSelectedBgs() {
+        if (thumbMode != THUMB_BITMAP) {
+            return;
         }
+        LabelLayout layout = ensureLabelLayout();
+        int count = layout.getCount();
+        if (selectedBgs.length != count) {
+            selectedBgs = new Bitmap[count];
+        }
+        int height = getHeight() - getPaddingTop() - getPaddingBottom();
+        Bitmap last = null;
+        for (int i = 0; i < count; i++) {
+            int width = layout.getTargetCellWidth(i);
+            if (width <= 0 || height <= 0) {
+                selectedBgs[i] = null;
+            } else if (last != null && last.getWidth() == width) {
+                selectedBgs[i] = last;
+            } else {
+                selectedBgs[i] = ThumbBitmapPool.getShared().obtain(getResources(), selectedBgResId, width, height);
+                last = selectedBgs[i];
+            }
+        }
+        selectedBgsValid = true;
     }
 
-    private String getRelativeTextR() {
-        float curIndexLeftEdge = selectedIndex * getElementWidth();
-        if (curIndexLeftEdge > mCurrentOffsetX) {
-            return labels[selectedIndex];
-        } else {
-            return labels[Math.min(labels.length - 1, selectedIndex + 1)];
-        }
+    private void releaseSelectedBg() {
+        Arrays.fill(selectedBgs, null);
+        selectedBgsValid = false;
     }
 
-    private float getRelativeOffsetL(String relativeTxt) {
-        if (TextUtils.isEmpty(relativeTxt)) {
-            return -1;
-        }
-        boolean isOnCurLeft = false;
-        //向左
-        float curIndexLeftEdge = selectedIndex * getElementWidth();
-        if (curIndexLeftEdge > mCurrentOffsetX) {
-            if (selectedIndex <= 0) {
-                return -1;
-            }
-            isOnCurLeft = true;
+    private void drawSelectedText(Canvas canvas) {
+        LabelLayout layout = ensureLabelLayout();
+        String selectedText = layout.getText(selectedIndex);
+        float paddingTop = layout.getBaseline();
+        //文字在 thumb 内居中，格子宽度不同时 thumb 的宽度会变化
+        float paddingLeft = getThumbLeft() + (getThumbWidth() - layout.getTextWidth(selectedIndex)) / 2;
+        textPaint.setColor(selectedColor);
+        canvas.drawText(selectedText, paddingLeft, paddingTop, textPaint);
+    }
+
+    private void drawRelativeText(Canvas canvas) {
+        relativeTextRenderer.draw(canvas, textPaint, ensureLabelLayout(), selectedIndex, mCurrentOffsetX,
+                getThumbLeft(), normalColor, selectedColor);
+    }
+
+    /**
+     * wrap_content 时宽度为所有格子的宽度之和，高度为一行文字的高度，thumb 使用 drawable 或位图资源时不小于它的高度
+     */
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int widthMode = MeasureSpec.getMode(widthMeasureSpec);
+        int heightMode = MeasureSpec.getMode(heightMeasureSpec);
+        measuredExactly = widthMode == MeasureSpec.EXACTLY && heightMode == MeasureSpec.EXACTLY;
+        int width;
+        if (widthMode == MeasureSpec.EXACTLY) {
+            width = MeasureSpec.getSize(widthMeasureSpec);
+        } else {
+            int contentWidth = LabelLayout.measureContentWidth(adapter, textPaint, labelWidth, labelPadding);
+            width = resolveSize(Math.max(getSuggestedMinimumWidth(),
+                    contentWidth + getPaddingLeft() + getPaddingRight()), widthMeasureSpec);
         }
-        //向右
-        if (curIndexLeftEdge < mCurrentOffsetX) {
-            if (selectedIndex >= labels.length - 1) {
-                return -1;
+        int height;
+        if (heightMode == MeasureSpec.EXACTLY) {
+            height = MeasureSpec.getSize(heightMeasureSpec);
+        } else {
+            int contentHeight = LabelLayout.measureContentHeight(textPaint);
+            if (thumbDrawable != null) {
+                contentHeight = Math.max(contentHeight, thumbDrawable.getIntrinsicHeight());
+            } else if (thumbMode == THUMB_BITMAP) {
+                contentHeight = Math.max(contentHeight, selectedBgIntrinsicHeight);
             }
+            height = resolveSize(Math.max(getSuggestedMinimumHeight(),
+                    contentHeight + getPaddingTop() + getPaddingBottom()), heightMeasureSpec);
         }
-        float offset = mCurrentOffsetX - curIndexLeftEdge;
-        float textWidth = textPaint.measureText(relativeTxt);
-        float rate = Math.abs(offset / getElementWidth());
-        if (isOnCurLeft) {
-            return (getElementWidth() - textWidth) / 2 - textWidth * (1 - rate);
-        } else {
-            return (getElementWidth() - textWidth) / 2 - textWidth * rate;
+        setMeasuredDimension(width, height);
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        invalidateGeometry();
+        //立即重新计算，thumb 和滚动位置在下一帧之前就归位
+        ensureLabelLayout();
+    }
+
+    /**
+     * 尺寸、字号或格子宽度改变后格子的位置都变了，停止所有动画，
+     * 下次读取布局时重新计算，thumb 直接放到选中的格子上
+     */
+    private void invalidateGeometry() {
+        invalidateLabelLayout();
+        cancelLayoutTransition();
+        contentAnimator.cancel();
+        if (thumbAnimator.isRunning()) {
+            thumbAnimator.cancel();
+            onThumbSettled();
         }
     }
 
-    private float getRelativeOffsetR(String relativeTxt) {
-        if (TextUtils.isEmpty(relativeTxt)) {
-            return -1;
+    /**
+     * labels 或样式改变后，view 的尺寸取决于内容时重新 measure
+     */
+    private void requestLayoutForContent() {
+        if (!measuredExactly) {
+            requestLayout();
         }
-        boolean isOnCurLeft = false;
-        //向左
-        float curIndexLeftEdge = selectedIndex * getElementWidth();
-        if (curIndexLeftEdge > mCurrentOffsetX) {
-            if (selectedIndex <= 0) {
-                return -1;
-            }
-            isOnCurLeft = true;
+    }
+
+    @Override
+    protected boolean verifyDrawable(Drawable who) {
+        return who == thumbDrawable || super.verifyDrawable(who);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        //bitmap 仍然保留在共享的缓存里，重新 attach 时再取
+        releaseSelectedBg();
+        textAtlas.release();
+        staticLayer.release();
+        if (velocityTracker != null) {
+            velocityTracker.recycle();
+            velocityTracker = null;
         }
-        //向右
-        if (curIndexLeftEdge < mCurrentOffsetX) {
-            if (selectedIndex >= labels.length - 1) {
-                return -1;
-            }
+        //停止动画，不让 Choreographer 继续持有 view，thumb 直接停在终点
+        finishLayoutTransition();
+        if (thumbAnimator.isRunning()) {
+            thumbAnimator.cancel();
+            mCurrentOffsetX = getValidOffsetX((int) thumbAnimator.getTarget());
         }
-        float offset = mCurrentOffsetX - curIndexLeftEdge;
-        float textWidth = textPaint.measureText(relativeTxt);
-        float rate = Math.abs(offset / getElementWidth());
-        if (isOnCurLeft) {
-            return (getElementWidth() - textWidth) / 2 + textWidth * rate;
-        } else {
-            return (getElementWidth() - textWidth) / 2 + textWidth * (1 - rate);
+        contentAnimator.cancel();
+        indexChangeDispatcher.flush();
+        isAttached = false;
+        detachAdapter();
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        isAttached = true;
+        observeAdapter();
+        //没有变化时直接使用原来的布局，例如 RecyclerView 中复用的 item
+        syncAdapterChanges();
+        if (getWidth() > 0) {
+            prepareSelectedBgs();
         }
     }
 
     @Override
-    public void computeScroll() {
-        Scroller scroller = mAdjustScroller;
-        if (scroller.isFinished()) {
+    protected Parcelable onSaveInstanceState() {
+        SavedState state = new SavedState(super.onSaveInstanceState());
+        state.selectedIndex = selectedIndex;
+        state.contentScrollX = contentScrollX;
+        return state;
+    }
+
+    @Override
+    protected void onRestoreInstanceState(Parcelable state) {
+        if (!(state instanceof SavedState)) {
+            super.onRestoreInstanceState(state);
             return;
         }
-        scroller.computeScrollOffset();
-        int currentScrollerX = scroller.getCurrX();
-        if (mPreviousScrollerX == 0) {
-            mPreviousScrollerX = scroller.getStartX();
+        SavedState savedState = (SavedState) state;
+        super.onRestoreInstanceState(savedState.getSuperState());
+        //恢复时不播放动画，也不回调 listener
+        restoredContentScrollX = savedState.contentScrollX;
+        invalidateLabelLayout();
+        setSelectedIndex(savedState.selectedIndex, false, false);
+    }
+
+    static class SavedState extends BaseSavedState {
+        int selectedIndex;
+        int contentScrollX;
+
+        SavedState(Parcelable superState) {
+            super(superState);
         }
-        scrollBy(currentScrollerX - mPreviousScrollerX, 0);
-        mPreviousScrollerX = currentScrollerX;
-        if (scroller.isFinished()) {
-//            onScrollerFinished(scroller);
-        } else {
-            invalidate();
+
+        private SavedState(Parcel in) {
+            super(in);
+            selectedIndex = in.readInt();
+            contentScrollX = in.readInt();
+        }
+
+        @Override
+        public void writeToParcel(Parcel out, int flags) {
+            super.writeToParcel(out, flags);
+            out.writeInt(selectedIndex);
+            out.writeInt(contentScrollX);
         }
+
+        public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>() {
+            @Override
+            public SavedState createFromParcel(Parcel in) {
+                return new SavedState(in);
+            }
+
+            @Override
+            public SavedState[] newArray(int size) {
+                return new SavedState[size];
+            }
+        };
+    }
+
+    @Override
+    public void setPadding(int left, int top, int right, int bottom) {
+        super.setPadding(left, top, right, bottom);
+        invalidateLabelLayout();
+    }
+
+    @Override
+    public void setPaddingRelative(int start, int top, int end, int bottom) {
+        super.setPaddingRelative(start, top, end, bottom);
+        invalidateLabelLayout();
     }
 
     @Override
@@ -319,176 +732,1133 @@ public class LabelSwitchView extends View {
         mCurrentOffsetX = getValidOffsetX(mCurrentOffsetX);
     }
 
+    /**
+     * 父 view（例如 ViewPager）在拦截前会询问子 view 能否继续横向滚动。
+     * 按在 thumb 上时 thumb 跟着手指走，和内容滚动的方向相反；thumb 到达边界后返回 false，
+     * 越界拖动的 dragOutDist 不算在内，否则 ViewPager 会认为子 view 还能滚动，整个手势都不再拦截。
+     * ViewPager 只在子 view 开始拖动之前询问，所以只有按下时 thumb 已经在这个方向的边界上，
+     * 越界拖动超过 dragOutDist 后才能交给 ViewPager；支持嵌套滚动的父 view 没有这个限制。
+     */
     @Override
-    public boolean dispatchTouchEvent(MotionEvent event) {
-        switch (event.getActionMasked()) {
-            case MotionEvent.ACTION_CANCEL:
-            case MotionEvent.ACTION_UP:
-//                removeAllCallbacks();
-                break;
-            default:
-                break;
+    public boolean canScrollHorizontally(int direction) {
+        if (getLabelCount() == 0) {
+            return false;
+        }
+        if (thumbInTouch) {
+            return direction < 0 ? canScrollRight() : canScrollLeft();
         }
-        return super.dispatchTouchEvent(event);
+        return direction < 0 ? contentScrollX > 0 : contentScrollX < getValidContentScrollX(Integer.MAX_VALUE);
     }
 
     @Override
     public boolean onTouchEvent(MotionEvent event) {
+        //不经过 GestureDetector，直接处理 down/move/up，避免每个事件额外的分发和计算
+        if (velocityTracker == null) {
+            //整个 view 生命周期复用同一个，避免每次按下都 obtain
+            velocityTracker = VelocityTracker.obtain();
+        }
+        if (event.getActionMasked() == MotionEvent.ACTION_DOWN) {
+            velocityTracker.clear();
+        }
+        velocityTracker.addMovement(event);
         switch (event.getActionMasked()) {
             case MotionEvent.ACTION_DOWN:
-                initPointLocation[0] = event.getRawX();
-                initPointLocation[1] = event.getRawY();
-                return gestureDetector.onTouchEvent(event);
+                initPointLocation[0] = event.getX();
+                initPointLocation[1] = event.getY();
+                lastTouchX = event.getX();
+                //打断正在进行的动画，thumb 停在当前位置，可以直接接着拖动
+                finishLayoutTransition();
+                thumbAnimator.cancel();
+                contentAnimator.cancel();
+                thumbInTouch = isThumbUnder(event.getX());
+                if (metricsListener != null) {
+                    touchDownNanos = frameClock.nanoTime();
+                    touchUpNanos = 0;
+                }
+                return true;
             case MotionEvent.ACTION_MOVE:
-                if (isDragging) {
-                    return gestureDetector.onTouchEvent(event);
+                if (isVerticalGesture || isHandedOff) {
+                    return true;
                 }
-                float x = event.getRawX();
-                float y = event.getRawY();
-                float dx = Math.abs(x - initPointLocation[0]);
-                float dy = Math.abs(y - initPointLocation[1]);
-                if (dx > threshold) {
-                    isDragging = true;
-                    return gestureDetector.onTouchEvent(event);
+                float x = event.getX();
+                if (!isDragging) {
+                    float dx = Math.abs(x - initPointLocation[0]);
+                    float dy = Math.abs(event.getY() - initPointLocation[1]);
+                    if (dx <= touchSlop && dy <= touchSlop) {
+                        return true;
+                    }
+                    if (dy > dx) {
+                        //纵向手势，例如在纵向列表中滑动，父 view 会拦截后发来 cancel
+                        isVerticalGesture = true;
+                        return true;
+                    }
+                    onStartDrag();
+                    //从超过 slop 的位置开始算，避免 thumb 突然跳一段
+                    lastTouchX = x;
                 }
-                break;
+                onDrag(x);
+                return true;
             case MotionEvent.ACTION_UP:
-            case MotionEvent.ACTION_CANCEL:
-                if (isDragging) {
+                markTouchUp();
+                if (isHandedOff) {
+                    velocityTracker.computeCurrentVelocity(1000, flingMaxVelocity);
+                    dispatchHandOffFling(velocityTracker.getXVelocity());
                     onTouchEnd();
+                } else if (isVerticalGesture) {
+                    onTouchEnd();
+                } else if (isDragging) {
+                    velocityTracker.computeCurrentVelocity(1000, flingMaxVelocity);
+                    float velocityX = velocityTracker.getXVelocity();
+                    float distanceX = event.getX() - initPointLocation[0];
+                    boolean isFling = Math.abs(velocityX) >= flingMinVelocity
+                            && Math.abs(distanceX) >= flingMinDistance;
+                    if (thumbInTouch && isFling) {
+                        onFling(velocityX);
+                    } else if (!thumbInTouch && isFling && isScrollable()) {
+                        onContentFling(velocityX);
+                    } else {
+                        onTouchEnd();
+                    }
+                } else {
+                    changeIndex(getIndexByTouch(event.getX()), true);
                 }
-                isDragging = false;
-                initPointLocation[0] = 0f;
-                initPointLocation[1] = 0f;
-                return gestureDetector.onTouchEvent(event);
+                resetTouch();
+                return true;
+            case MotionEvent.ACTION_CANCEL:
+                //down 时可能打断了动画，不管有没有拖动都要让 thumb 回到选中的格子
+                markTouchUp();
+                onTouchEnd();
+                resetTouch();
+                return true;
             default:
                 break;
         }
         return super.onTouchEvent(event);
     }
 
+    /**
+     * 确定是横向拖动后不再让父 view 拦截，避免和纵向列表、ViewPager 同时处理同一个手势
+     */
+    private void onStartDrag() {
+        isDragging = true;
+        ViewParent parent = getParent();
+        if (parent != null) {
+            parent.requestDisallowInterceptTouchEvent(true);
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            startNestedScroll(SCROLL_AXIS_HORIZONTAL);
+        }
+    }
+
+    private void onDrag(float x) {
+        float distanceX = lastTouchX - x;
+        lastTouchX = x;
+        //和 scrollBy 的方向一致，手指向左为正
+        int unconsumed;
+        if (!thumbInTouch) {
+            int scrollX = contentScrollX;
+            if (isScrollable()) {
+                scrollContentTo(contentScrollX + (int) distanceX);
+            }
+            unconsumed = (int) distanceX - (contentScrollX - scrollX);
+        } else {
+            int offsetX = mCurrentOffsetX;
+            if ((distanceX < 0 && canScrollRight())
+                    || (distanceX > 0 && canScrollLeft())) {
+                onTouchMove(-distanceX);
+            }
+            unconsumed = (int) distanceX + (mCurrentOffsetX - offsetX);
+        }
+        onOverDrag(unconsumed);
+    }
+
+    /**
+     * 拖到头后继续往同一个方向拖超过 dragOutDist，把之后的拖动交给父 view：
+     * 支持嵌套滚动的父 view 通过 dispatchNestedScroll 接收，否则允许父 view 重新拦截
+     */
+    private void onOverDrag(int unconsumed) {
+        if (unconsumed == 0 || (overDragX != 0 && (unconsumed > 0) != (overDragX > 0))) {
+            overDragX = 0;
+        }
+        overDragX += unconsumed;
+        if (Math.abs(overDragX) <= dragOutDist) {
+            return;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP
+                && dispatchNestedScroll(0, 0, unconsumed, 0, null)) {
+            return;
+        }
+        ViewParent parent = getParent();
+        if (parent != null) {
+            parent.requestDisallowInterceptTouchEvent(false);
+        }
+        //父 view 拦截后会发来 cancel，在那之前的事件都不再处理
+        isHandedOff = true;
+    }
+
+    private void dispatchHandOffFling(float velocityX) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            dispatchNestedFling(-velocityX, 0, false);
+        }
+    }
+
+    private void resetTouch() {
+        isDragging = false;
+        thumbInTouch = false;
+        isVerticalGesture = false;
+        isHandedOff = false;
+        overDragX = 0;
+        initPointLocation[0] = 0f;
+        initPointLocation[1] = 0f;
+        if (!thumbAnimator.isRunning()) {
+            //点击已选中的 label、纵向手势或只滚动了内容，thumb 没有动，这次触摸不统计
+            touchDownNanos = 0;
+            touchUpNanos = 0;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            stopNestedScroll();
+        }
+    }
+
     private void onTouchEnd() {
         ensureAdjustThumb();
     }
 
+    /**
+     * 按当前速度推算 thumb 滑行停下的位置，选中离它最近的 label，
+     * 动画从松手时的速度开始，不会有停顿。
+     */
+    private void onFling(float velocityX) {
+        if (getLabelCount() == 0) {
+            onTouchEnd();
+            return;
+        }
+        LabelLayout layout = ensureLabelLayout();
+        float projectedX = mCurrentOffsetX + velocityX / flingFriction;
+        int currentIndex = layout.getNearestIndex(mCurrentOffsetX);
+        int targetIndex = layout.getNearestIndex((int) projectedX);
+        if (targetIndex == currentIndex) {
+            //速度已经超过阈值，至少往 fling 的方向走一格
+            targetIndex += velocityX > 0 ? 1 : -1;
+        }
+        targetIndex = Math.max(0, Math.min(getLabelCount() - 1, targetIndex));
+        changeIndex(targetIndex, true, velocityX);
+    }
+
+    /**
+     * 拖动内容后的 fling，和 thumb 使用相同的减速系数推算停下的位置
+     */
+    private void onContentFling(float velocityX) {
+        float target = getValidContentScrollX((int) (contentScrollX - velocityX / flingFriction));
+        contentAnimator.animateTo(contentScrollX, target, -velocityX);
+    }
+
+    private boolean isScrollable() {
+        return getLabelCount() > 0 && ensureLabelLayout().isScrollable();
+    }
+
+    private void scrollContentTo(int scrollX) {
+        scrollX = getValidContentScrollX(scrollX);
+        if (scrollX != contentScrollX) {
+            contentScrollX = scrollX;
+            invalidate();
+        }
+    }
+
+    /**
+     * thumb 移出可见范围时滚动内容，让 thumb 完整显示
+     */
+    private void ensureThumbVisible() {
+        if (!isScrollable()) {
+            return;
+        }
+        int viewportWidth = getViewportWidth();
+        int scrollX = contentScrollX;
+        if (mCurrentOffsetX < scrollX) {
+            scrollX = mCurrentOffsetX;
+        } else if (mCurrentOffsetX + getThumbWidth() > scrollX + viewportWidth) {
+            scrollX = mCurrentOffsetX + getThumbWidth() - viewportWidth;
+        }
+        contentScrollX = getValidContentScrollX(scrollX);
+    }
+
+    private int getValidContentScrollX(int scrollX) {
+        int maxScrollX = Math.max(0, ensureLabelLayout().getContentWidth() - getViewportWidth());
+        return Math.min(Math.max(0, scrollX), maxScrollX);
+    }
+
+    private int getViewportWidth() {
+        return getWidth() - getPaddingLeft() - getPaddingRight();
+    }
+
+    /**
+     * @return thumb 在 view 坐标中的左边界
+     */
+    private int getThumbLeft() {
+        return mCurrentOffsetX - contentScrollX + getPaddingLeft();
+    }
+
     private void onTouchMove(float x) {
         mCurrentOffsetX += x;
         mCurrentOffsetX = getValidOffsetX(mCurrentOffsetX);
-        int touchIndex = (int) ((float) mCurrentOffsetX / getElementWidth() + 0.5f);
         int oldSelectedIndex = selectedIndex;
-        selectedIndex = Math.max(0, Math.min(getLabelCount() - 1, touchIndex));
+        selectedIndex = ensureLabelLayout().getNearestIndex(mCurrentOffsetX);
         if (oldSelectedIndex != selectedIndex) {
             notifyIndexChanged(oldSelectedIndex, selectedIndex);
         }
-        invalidate();
+        ensureThumbVisible();
+        invalidateThumb();
+        onThumbMoved();
+    }
+
+    private void markTouchUp() {
+        if (metricsListener != null) {
+            touchUpNanos = frameClock.nanoTime();
+        }
+    }
+
+    private void onThumbMoved() {
+        if (metricsListener != null && touchDownNanos != 0) {
+            metricsListener.onTouchLatency(frameClock.nanoTime() - touchDownNanos);
+            touchDownNanos = 0;
+        }
+    }
+
+    /**
+     * thumb 停在了选中的格子上。没有经过动画或动画被打断时不统计 onSettle
+     */
+    private void onThumbSettled() {
+        indexChangeDispatcher.onSettled();
+        touchDownNanos = 0;
+        touchUpNanos = 0;
     }
 
     private boolean ensureAdjustThumb() {
-        int deltaX = getElementWidth() * selectedIndex - mCurrentOffsetX;
-        if (deltaX != 0) {
-            mPreviousScrollerX = 0;
-            mAdjustScroller.startScroll(0, 0, deltaX, 0, SELECTOR_ADJUSTMENT_DURATION_MILLIS);
-            invalidate();
+        return ensureAdjustThumb(0);
+    }
+
+    /**
+     * @param velocity 动画的初始速度，单位 px/s
+     */
+    private boolean ensureAdjustThumb(float velocity) {
+        int targetX = getCellLeft(selectedIndex);
+        if (getWidth() == 0) {
+            //还没有布局，动画不可见，直接停在终点
+            thumbAnimator.cancel();
+            mCurrentOffsetX = targetX;
+            onThumbSettled();
+            return false;
+        }
+        if (thumbAnimator.isRunning()) {
+            //动画还没结束时从当前的位置和速度转向新的终点
+            thumbAnimator.animateTo(thumbAnimator.getValue(), targetX, thumbAnimator.getVelocity());
+            return true;
+        }
+        if (targetX != mCurrentOffsetX) {
+            thumbAnimator.animateTo(mCurrentOffsetX, targetX, velocity);
             return true;
         }
+        //已经在选中的格子上了，不需要动画
+        onThumbSettled();
         return false;
     }
 
+    /**
+     * 只重绘 thumb 移动经过的区域：上一次绘制时 thumb 所在的区域加上新的区域，
+     * 开启 showSwipeRelative 时还包括两侧 relative text 可能出现的范围。
+     */
+    private void invalidateThumb() {
+        if (!hasDrawnThumb || contentScrollX != drawnContentScrollX
+                || (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP && isHardwareAccelerated())) {
+            //硬件加速下 dirty rect 会被忽略，直接 invalidate，省去计算
+            invalidate();
+            return;
+        }
+        int margin = getThumbDirtyMargin();
+        int left = Math.min(drawnThumbLeft, getThumbLeft() - margin);
+        int right = Math.max(drawnThumbRight, getThumbLeft() + getThumbWidth() + margin);
+        invalidate(left, 0, right, getHeight());
+    }
+
+    private void recordDrawnThumb() {
+        int margin = getThumbDirtyMargin();
+        drawnThumbLeft = getThumbLeft() - margin;
+        drawnThumbRight = getThumbLeft() + getThumbWidth() + margin;
+        drawnContentScrollX = contentScrollX;
+        hasDrawnThumb = true;
+    }
+
+    /**
+     * @return thumb 两侧需要一起重绘的宽度，包括超出格子的文字和 relative text
+     */
+    private int getThumbDirtyMargin() {
+        LabelLayout layout = ensureLabelLayout();
+        float maxTextWidth = layout.getMaxTextWidth();
+        int margin = (int) Math.max(0, (maxTextWidth - layout.getElementWidth()) / 2) + 1;
+        if (showSwipeRelative && !isTextAtlasUsable()) {
+            margin += (int) maxTextWidth + 1;
+        }
+        return margin;
+    }
+
     private boolean canScrollLeft() {
         return mCurrentOffsetX > 0;
     }
 
     private boolean canScrollRight() {
-        return mCurrentOffsetX < getWidth() - getElementWidth() - getPaddingRight() - getPaddingLeft();
+        return mCurrentOffsetX < getMaxOffsetX();
     }
 
     private int getValidOffsetX(int currentOffsetX) {
-        return Math.min(Math.max(-dragOutDist, currentOffsetX), getWidth() - getElementWidth() - getPaddingLeft() - getPaddingRight() + dragOutDist);
+        return Math.min(Math.max(-dragOutDist, currentOffsetX), getMaxOffsetX() + dragOutDist);
+    }
+
+    /**
+     * @return thumb 停在最后一格时的偏移量
+     */
+    private int getMaxOffsetX() {
+        int count = getLabelCount();
+        return count == 0 ? 0 : getCellLeft(count - 1);
     }
 
     private void notifyIndexChanged(int oldIndex, int newIndex) {
-        if (mOnIndexChangeListener != null) {
-            mOnIndexChangeListener.onIndexChange(oldIndex, newIndex);
+        indexChangeDispatcher.dispatch(oldIndex, newIndex);
+        if (accessibilityProvider != null && accessibilityManager.isEnabled()) {
+            accessibilityProvider.onSelectionChanged(newIndex);
+        }
+    }
+
+    @Override
+    public AccessibilityNodeProvider getAccessibilityNodeProvider() {
+        if (accessibilityProvider == null) {
+            accessibilityManager = (AccessibilityManager) getContext().getSystemService(Context.ACCESSIBILITY_SERVICE);
+            accessibilityProvider = new LabelAccessibilityProvider(this);
+        }
+        return accessibilityProvider;
+    }
+
+    /**
+     * 触摸浏览时把手指下的 label 告诉无障碍服务
+     */
+    @Override
+    protected boolean dispatchHoverEvent(MotionEvent event) {
+        if (accessibilityProvider == null || !accessibilityManager.isTouchExplorationEnabled()) {
+            return super.dispatchHoverEvent(event);
         }
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_HOVER_ENTER:
+            case MotionEvent.ACTION_HOVER_MOVE:
+                accessibilityProvider.onHover(getLabelCount() == 0
+                        ? LabelAccessibilityProvider.HOST_ID : getIndexByTouch(event.getX()));
+                return true;
+            case MotionEvent.ACTION_HOVER_EXIT:
+                accessibilityProvider.onHover(LabelAccessibilityProvider.HOST_ID);
+                return true;
+            default:
+                return super.dispatchHoverEvent(event);
+        }
+    }
+
+    /**
+     * @param out 格子在 view 坐标中的区域
+     */
+    void getLabelBounds(int index, Rect out) {
+        LabelLayout layout = ensureLabelLayout();
+        int left = layout.getCellLeft(index) - contentScrollX + getPaddingLeft();
+        out.set(left, getPaddingTop(), left + layout.getCellWidth(index), getHeight() - getPaddingBottom());
+    }
+
+    CharSequence getLabelText(int index) {
+        return ensureLabelLayout().getText(index);
     }
 
-    private int getElementWidth() {
-        if (mElementWidth <= 0) {
-            int labelCount = getLabelCount();
-            int width = getWidth() - getPaddingLeft() - getPaddingRight();
-            if (labelCount == 0) {
-                mElementWidth = width;
+    /**
+     * 无障碍服务选中 label，和点击相同
+     */
+    void selectLabel(int index) {
+        changeIndex(index, true);
+    }
+
+    private LabelLayout ensureLabelLayout() {
+        if (!isObservingAdapter) {
+            //没有 attach 时也可能被测量或绘制，例如 RecyclerView 预先创建的 item
+            syncAdapterChanges();
+        }
+        if (!labelLayout.isValid()) {
+            //还没有布局时也先使用预先计算的结果，避免按 0 宽度测量一次
+            if (precomputedLabels != null && (getWidth() == 0 || precomputedLabels.getParams().matches(textPaint,
+                    getWidth(), getHeight(), getPaddingLeft(), getPaddingTop(), getPaddingRight(), getPaddingBottom(),
+                    labelWidth, labelPadding))) {
+                labelLayout.copyFrom(precomputedLabels.getLayout(), adapter, textPaint);
             } else {
-                mElementWidth = width / labelCount;
+                labelLayout.compute(adapter, textPaint, getPaddingLeft(), getPaddingTop(),
+                        getWidth() - getPaddingLeft() - getPaddingRight(),
+                        getHeight() - getPaddingTop() - getPaddingBottom(), labelWidth, labelPadding);
+            }
+            if (restoredContentScrollX >= 0 && getWidth() > 0) {
+                contentScrollX = restoredContentScrollX;
+                restoredContentScrollX = -1;
+            }
+            //labels 或尺寸改变后内容可能变短了
+            contentScrollX = getValidContentScrollX(contentScrollX);
+            prepareSelectedBgs();
+            //thumb 静止时直接放到新布局中选中的格子上，尺寸改变或恢复状态后的第一帧就是最终位置
+            int count = labelLayout.getCount();
+            if (count > 0 && !isDragging && !thumbAnimator.isRunning() && !layoutAnimator.isRunning()) {
+                mCurrentOffsetX = labelLayout.getTargetCellLeft(Math.min(selectedIndex, count - 1));
+                ensureThumbVisible();
             }
         }
-        return mElementWidth;
+        return labelLayout;
     }
 
-    private int getTextPaddingTop() {
-        if (textPaddingTop <= 0) {
-            textPaddingTop = (int) ((getHeight() - getPaddingTop() - getPaddingBottom() + Math.abs(textPaint.getFontMetrics().ascent)) / 2 + getPaddingTop());
+    private void invalidateLabelLayout() {
+        //View 的构造函数里可能会调用 setPadding，此时 labelLayout 还没有初始化
+        if (labelLayout != null) {
+            labelLayout.invalidate();
+            textAtlas.invalidate();
+            staticLayer.invalidate();
+            selectedBgsValid = false;
         }
-        return textPaddingTop;
     }
 
-    private int getLabelCount() {
-        return labels == null ? 0 : labels.length;
+    private int getCellLeft(int index) {
+        return ensureLabelLayout().getCellLeft(index);
+    }
+
+    /**
+     * @return thumb 当前的宽度，格子宽度不同时在相邻两个格子的宽度之间过渡
+     */
+    private int getThumbWidth() {
+        return ensureLabelLayout().getThumbWidthAt(mCurrentOffsetX);
+    }
+
+    int getLabelCount() {
+        return ensureLabelLayout().getCount();
+    }
+
+    private boolean isThumbUnder(float x) {
+        float thumbLeft = getThumbLeft();
+        return x >= thumbLeft && x < thumbLeft + getThumbWidth();
     }
 
     private int getIndexByTouch(float x) {
-        if (labels == null) {
+        if (getLabelCount() == 0) {
             return 0;
         }
-        return (int) Math.min(labels.length - 1, Math.max(0, x / getElementWidth()));
+        float contentX = x - getPaddingLeft() + contentScrollX;
+        return ensureLabelLayout().getIndexAt((int) contentX);
     }
 
     private void changeIndex(int newIndex, boolean notify) {
+        changeIndex(newIndex, notify, 0);
+    }
+
+    private void changeIndex(int newIndex, boolean notify, float velocity) {
+        finishLayoutTransition();
         int oldSelectedIndex = selectedIndex;
-        selectedIndex = newIndex;
-        ensureAdjustThumb();
+        selectedIndex = Math.max(0, Math.min(getLabelCount() - 1, newIndex));
+        //先分发变化，DELIVERY_SETTLED 的 listener 才能在 thumb 停下时收到回调
         if (notify && oldSelectedIndex != selectedIndex) {
             notifyIndexChanged(oldSelectedIndex, selectedIndex);
         }
+        ensureAdjustThumb(velocity);
+    }
+
+    /**
+     * @return 所有 LabelSwitchView 共享的 thumb 背景缓存占用的字节数
+     */
+    public static int getThumbPoolByteCount() {
+        return ThumbBitmapPool.getShared().getByteCount();
+    }
+
+    /**
+     * @return thumb 背景缓存的内存上限，单位字节
+     */
+    public static int getThumbPoolMaxByteCount() {
+        return ThumbBitmapPool.getShared().getMaxByteCount();
+    }
+
+    /**
+     * 清空 thumb 背景缓存，例如在 onTrimMemory 时调用
+     */
+    public static void clearThumbPool() {
+        ThumbBitmapPool.getShared().clear();
+    }
+
+    /**
+     * 设置 thumb 背景，位图资源、xml drawable 和颜色资源会分别使用不同的绘制方式
+     */
+    public void setSelectedBackground(int resId) {
+        selectedBgResId = resId;
+        resolveThumbMode();
+        if (getWidth() > 0) {
+            prepareSelectedBgs();
+        }
+        //thumb 的高度可能决定了 view 的高度
+        requestLayoutForContent();
+        invalidate();
+    }
+
+    /**
+     * 不使用背景资源，直接用颜色绘制圆角矩形 thumb
+     *
+     * @param cornerRadius 圆角半径，单位 px
+     */
+    public void setThumbColor(int color, float cornerRadius) {
+        selectedBgResId = INVALID_ID;
+        thumbColor = color;
+        thumbCornerRadius = cornerRadius;
+        resolveThumbMode();
+        invalidate();
     }
 
     public void setSelectedIndex(int index) {
         changeIndex(index, true);
     }
 
+    /**
+     * @param animate 为 false 时 thumb 直接移到选中的格子，例如恢复界面状态时
+     * @param notify  是否回调 {@link OnIndexChangeListener}
+     */
+    public void setSelectedIndex(int index, boolean animate, boolean notify) {
+        if (animate) {
+            changeIndex(index, notify);
+            return;
+        }
+        finishLayoutTransition();
+        thumbAnimator.cancel();
+        int oldSelectedIndex = selectedIndex;
+        int count = getLabelCount();
+        //还没有 labels 时先保存，设置 labels 后生效
+        selectedIndex = count == 0 ? Math.max(0, index) : Math.max(0, Math.min(count - 1, index));
+        if (notify && oldSelectedIndex != selectedIndex) {
+            notifyIndexChanged(oldSelectedIndex, selectedIndex);
+        }
+        if (count > 0) {
+            mCurrentOffsetX = getCellLeft(selectedIndex);
+            ensureThumbVisible();
+        }
+        onThumbSettled();
+        invalidate();
+    }
+
+    public int getSelectedIndex() {
+        return selectedIndex;
+    }
+
+    /**
+     * 把 thumb 直接放在 position 格和下一格之间，用于跟随 ViewPager 等外部的滚动进度，可以每帧调用。
+     * 选中离 thumb 最近的格子，不播放动画，也不回调 listener；正在拖动时忽略。
+     * 打断 thumb 的动画时不算停下，还没回调的 {@link #DELIVERY_SETTLED} 变化直接丢弃，
+     * 避免 ViewPagerLabelSync 在 ViewPager 拖动中切换页面。
+     *
+     * @param positionOffset 0 到 1，和 ViewPager.OnPageChangeListener#onPageScrolled 的参数相同
+     */
+    public void setSelectedPosition(int position, float positionOffset) {
+        if (isDragging || getLabelCount() == 0) {
+            return;
+        }
+        finishLayoutTransition();
+        if (thumbAnimator.isRunning()) {
+            thumbAnimator.cancel();
+            indexChangeDispatcher.cancelSettled();
+            touchDownNanos = 0;
+            touchUpNanos = 0;
+        }
+        LabelLayout layout = ensureLabelLayout();
+        int count = layout.getCount();
+        position = Math.max(0, Math.min(count - 1, position));
+        int offsetX = layout.getCellLeft(position);
+        if (position < count - 1 && positionOffset > 0) {
+            offsetX += Math.round(layout.getCellWidth(position) * positionOffset);
+        }
+        //打断动画时 selectedIndex 已经是动画的终点，thumb 没有移动也要改回来
+        int oldSelectedIndex = selectedIndex;
+        selectedIndex = layout.getNearestIndex(offsetX);
+        if (offsetX == mCurrentOffsetX) {
+            if (oldSelectedIndex != selectedIndex) {
+                //thumb 上的文字变了
+                invalidateThumb();
+            }
+            return;
+        }
+        mCurrentOffsetX = offsetX;
+        ensureThumbVisible();
+        invalidateThumb();
+    }
+
     public void setLabels(String[] labels) {
-        this.labels = labels;
+        setAdapter(labels == null ? null : new ArrayLabelAdapter(labels));
+    }
+
+    /**
+     * 和当前的 labels 比较，只重新测量变化的部分。
+     * 选中的 label 仍然存在时保持选中它，格子宽度和 thumb 以动画过渡到新的位置。
+     * 当前不是通过 setLabels 设置的 labels 时和 setLabels 相同。
+     */
+    public void updateLabels(CharSequence[] newLabels) {
+        if (!(adapter instanceof ArrayLabelAdapter) || newLabels == null) {
+            setAdapter(newLabels == null ? null : new ArrayLabelAdapter(newLabels));
+            return;
+        }
+        ArrayLabelAdapter arrayAdapter = (ArrayLabelAdapter) adapter;
+        CharSequence[] oldLabels = arrayAdapter.getLabels();
+        int oldCount = oldLabels == null ? 0 : oldLabels.length;
+        int newCount = newLabels.length;
+        //前后相同的部分不需要重新测量
+        int minCount = Math.min(oldCount, newCount);
+        int prefix = 0;
+        while (prefix < minCount && TextUtils.equals(oldLabels[prefix], newLabels[prefix])) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < minCount - prefix
+                && TextUtils.equals(oldLabels[oldCount - 1 - suffix], newLabels[newCount - 1 - suffix])) {
+            suffix++;
+        }
+        int oldEnd = oldCount - suffix;
+        int newEnd = newCount - suffix;
+
+        int newSelectedIndex;
+        if (selectedIndex < prefix) {
+            newSelectedIndex = selectedIndex;
+        } else if (selectedIndex >= oldEnd) {
+            newSelectedIndex = selectedIndex + newCount - oldCount;
+        } else {
+            newSelectedIndex = findLabel(newLabels, prefix, newEnd, oldLabels[selectedIndex], selectedIndex);
+        }
+
+        finishLayoutTransition();
+        int fromWidth = ensureLabelLayout().getElementWidth();
+        int fromOffsetX = mCurrentOffsetX;
+        precomputedLabels = null;
+        arrayAdapter.setLabels(newLabels);
+        int changedEnd = Math.min(oldEnd, newEnd);
+        labelLayout.onItemRangeChanged(prefix, changedEnd - prefix);
+        if (newEnd > oldEnd) {
+            labelLayout.onItemRangeInserted(changedEnd, newEnd - oldEnd);
+        } else if (oldEnd > newEnd) {
+            labelLayout.onItemRangeRemoved(changedEnd, oldEnd - newEnd);
+        }
+        onLabelsChanged(newSelectedIndex);
+        startLayoutTransition(fromWidth, fromOffsetX);
+    }
+
+    /**
+     * 在 [start, end) 中查找离 nearIndex 最近的相同 label
+     *
+     * @return 没有找到时返回 nearIndex
+     */
+    private static int findLabel(CharSequence[] labels, int start, int end, CharSequence label, int nearIndex) {
+        int found = -1;
+        for (int i = start; i < end; i++) {
+            if (TextUtils.equals(labels[i], label)
+                    && (found == -1 || Math.abs(i - nearIndex) < Math.abs(found - nearIndex))) {
+                found = i;
+            }
+        }
+        return found == -1 ? nearIndex : found;
+    }
+
+    /**
+     * 使用 adapter 按需提供 label，只有可见或发生变化的 label 才会被获取和测量
+     */
+    public void setAdapter(LabelAdapter adapter) {
+        detachAdapter();
+        attachAdapter(adapter);
+        onLabelsChanged(selectedIndex);
+    }
+
+    /**
+     * 使用预先计算好的 labels，view 的尺寸和样式与计算时一致时不需要再测量，否则和 setLabels 相同
+     */
+    public void setPrecomputedLabels(PrecomputedLabels labels) {
+        detachAdapter();
+        attachAdapter(new ArrayLabelAdapter(labels.getLabels()));
+        precomputedLabels = labels;
+        onLabelsChanged(selectedIndex);
+    }
+
+    /**
+     * 在主线程获取当前的文字样式，用于在后台线程调用 {@link PrecomputedLabels#create}
+     *
+     * @param width  view 布局后的宽度
+     * @param height view 布局后的高度
+     */
+    public PrecomputedLabels.Params getPrecomputeParams(int width, int height) {
+        return new PrecomputedLabels.Params(textPaint, width, height,
+                getPaddingLeft(), getPaddingTop(), getPaddingRight(), getPaddingBottom(), labelWidth, labelPadding);
+    }
+
+    public LabelAdapter getAdapter() {
+        return adapter;
+    }
+
+    private void detachAdapter() {
+        if (isObservingAdapter) {
+            adapter.unregisterObserver(adapterObserver);
+            isObservingAdapter = false;
+            adapterChangeCount = adapter.getChangeCount();
+        }
+    }
+
+    private void attachAdapter(LabelAdapter adapter) {
+        this.adapter = adapter;
+        precomputedLabels = null;
+        adapterChangeCount = adapter == null ? 0 : adapter.getChangeCount();
+        if (isAttached) {
+            observeAdapter();
+        }
+        invalidateLabelLayout();
+    }
+
+    private void observeAdapter() {
+        if (adapter != null && !isObservingAdapter) {
+            adapter.registerObserver(adapterObserver);
+            isObservingAdapter = true;
+        }
+    }
+
+    /**
+     * 没有注册 observer 期间 adapter 通知过变化，不知道具体改了哪些，全部重新计算
+     */
+    private void syncAdapterChanges() {
+        if (isObservingAdapter || adapter == null || adapter.getChangeCount() == adapterChangeCount) {
+            return;
+        }
+        adapterChangeCount = adapter.getChangeCount();
+        precomputedLabels = null;
+        invalidateLabelLayout();
+        onLabelsChanged(selectedIndex);
+    }
+
+    /**
+     * label 数量或内容改变后，选中 newSelectedIndex 对应的 label，thumb 直接移到对应的格子
+     */
+    private void onLabelsChanged(int newSelectedIndex) {
+        cancelLayoutTransition();
+        textAtlas.invalidate();
+        staticLayer.invalidate();
+        selectedBgsValid = false;
+        int count = getLabelCount();
+        if (!selectedBgsValid) {
+            //增量更新时布局没有重新计算，格子宽度可能变了
+            prepareSelectedBgs();
+        }
+        int oldSelectedIndex = selectedIndex;
+        selectedIndex = Math.max(0, Math.min(count - 1, newSelectedIndex));
+        thumbAnimator.cancel();
+        mCurrentOffsetX = getCellLeft(selectedIndex);
+        contentScrollX = getValidContentScrollX(contentScrollX);
+        ensureThumbVisible();
+        if (oldSelectedIndex != selectedIndex) {
+            notifyIndexChanged(oldSelectedIndex, selectedIndex);
+        }
+        indexChangeDispatcher.onSettled();
+        requestLayoutForContent();
+        invalidate();
+    }
+
+    /**
+     * @param size label 文字大小，单位 px
+     */
+    public void setLabelTextSize(int size) {
+        if (labelTextSize == size) {
+            return;
+        }
+        labelTextSize = size;
+        textPaint.setTextSize(size);
+        invalidateGeometry();
+        requestLayoutForContent();
+        invalidate();
+    }
+
+    public void setShowSwipeRelative(boolean showSwipeRelative) {
+        if (this.showSwipeRelative == showSwipeRelative) {
+            return;
+        }
+        this.showSwipeRelative = showSwipeRelative;
+        invalidate();
+    }
+
+    /**
+     * @param effect showSwipeRelative 时两侧文字的过渡效果，null 时使用 {@link RelativeTextEffect#SLIDE_FADE}
+     */
+    public void setRelativeTextEffect(RelativeTextEffect effect) {
+        relativeTextRenderer.setEffect(effect);
+        if (showSwipeRelative) {
+            invalidate();
+        }
+    }
+
+    public RelativeTextEffect getRelativeTextEffect() {
+        return relativeTextRenderer.getEffect();
+    }
+
+    private static RelativeTextEffect getRelativeTextEffect(int value) {
+        switch (value) {
+            case RELATIVE_EFFECT_FADE:
+                return RelativeTextEffect.FADE;
+            case RELATIVE_EFFECT_SLIDE:
+                return RelativeTextEffect.SLIDE;
+            case RELATIVE_EFFECT_SCALE:
+                return RelativeTextEffect.SCALE;
+            case RELATIVE_EFFECT_COLOR:
+                return RelativeTextEffect.COLOR;
+            default:
+                return RelativeTextEffect.SLIDE_FADE;
+        }
+    }
+
+    public void setLabelColors(int normalColor, int selectedColor) {
+        this.normalColor = normalColor;
+        this.selectedColor = selectedColor;
+        invalidate();
+    }
+
+    /**
+     * @param width 格子宽度，单位 px；{@link #LABEL_WIDTH_FILL} 时平分 view 的宽度，
+     *              {@link #LABEL_WIDTH_PROPORTIONAL} 时按各自的文字宽度分配，
+     *              大于 0、{@link #LABEL_WIDTH_WRAP_CONTENT} 或 proportional 时内容超出 view 宽度后可以横向滚动，
+     *              只有可见的 label 会被测量和绘制
+     * @throws IllegalArgumentException width 是其他负数时
+     */
+    public void setLabelWidth(int width) {
+        if (labelWidth == checkLabelWidth(width)) {
+            return;
+        }
+        labelWidth = width;
+        invalidateGeometry();
+        requestLayoutForContent();
+        invalidate();
+    }
+
+    private static int checkLabelWidth(int width) {
+        if (width < 0 && width != LABEL_WIDTH_WRAP_CONTENT && width != LABEL_WIDTH_PROPORTIONAL) {
+            throw new IllegalArgumentException("unsupported label width: " + width);
+        }
+        return width;
+    }
+
+    /**
+     * @param padding {@link #LABEL_WIDTH_WRAP_CONTENT} 和 {@link #LABEL_WIDTH_PROPORTIONAL} 时文字两侧的留白，单位 px
+     */
+    public void setLabelPadding(int padding) {
+        if (labelPadding == padding) {
+            return;
+        }
+        labelPadding = padding;
+        invalidateGeometry();
+        requestLayoutForContent();
+        invalidate();
+    }
+
+    /**
+     * 开启后把 label 预先画到图层上，每帧只画两次 bitmap，适合 label 较多的情况。
+     * 会额外占用两张 view 大小的 bitmap。内容可以滚动时不使用图层。
+     */
+    public void setTextAtlasEnabled(boolean enabled) {
+        if (useTextAtlas == enabled) {
+            return;
+        }
+        useTextAtlas = enabled;
+        if (!enabled) {
+            textAtlas.release();
+        }
+        invalidate();
+    }
+
+    /**
+     * 默认关闭。拖动和回弹时把 normal 颜色的 label 录制成 Picture，每帧只回放，
+     * 只在软件绘制时生效，例如 view 设置了 LAYER_TYPE_SOFTWARE；硬件加速时回放没有收益，自动逐个 drawText。
+     */
+    public void setStaticLayerEnabled(boolean enabled) {
+        if (useStaticLayer == enabled) {
+            return;
+        }
+        useStaticLayer = enabled;
+        if (!enabled) {
+            staticLayer.release();
+        }
     }
 
     public void setOnIndexChangeListener(OnIndexChangeListener onIndexChangeListener) {
+        setOnIndexChangeListener(onIndexChangeListener, DELIVERY_IMMEDIATE);
+    }
+
+    /**
+     * 替换之前通过 setOnIndexChangeListener 设置的 listener，不影响 addOnIndexChangeListener 添加的
+     *
+     * @param delivery {@link #DELIVERY_IMMEDIATE}、{@link #DELIVERY_COALESCED} 或 {@link #DELIVERY_SETTLED}
+     */
+    public void setOnIndexChangeListener(OnIndexChangeListener onIndexChangeListener, int delivery) {
+        indexChangeDispatcher.remove(mOnIndexChangeListener);
         this.mOnIndexChangeListener = onIndexChangeListener;
+        indexChangeDispatcher.add(onIndexChangeListener, delivery);
     }
 
-    private class TouchGestureListener extends GestureDetector.SimpleOnGestureListener {
-        private boolean thumbInTouch = false;
+    /**
+     * @param delivery {@link #DELIVERY_IMMEDIATE}、{@link #DELIVERY_COALESCED} 或 {@link #DELIVERY_SETTLED}
+     */
+    public void addOnIndexChangeListener(OnIndexChangeListener listener, int delivery) {
+        indexChangeDispatcher.add(listener, delivery);
+    }
 
-        @Override
-        public boolean onDown(MotionEvent e) {
-            thumbInTouch = selectedIndex == getIndexByTouch(e.getX());
-            return true;
+    public void removeOnIndexChangeListener(OnIndexChangeListener listener) {
+        indexChangeDispatcher.remove(listener);
+        if (mOnIndexChangeListener == listener) {
+            mOnIndexChangeListener = null;
         }
+    }
+
+    /**
+     * 设置后开始统计绘制耗时、触摸延迟和 index 回调耗时，为 null 时没有任何额外开销
+     */
+    public void setMetricsListener(MetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+        indexChangeDispatcher.setMetricsListener(metricsListener);
+        touchDownNanos = 0;
+        touchUpNanos = 0;
+        lastDragDrawNanos = 0;
+    }
+
+    void setFrameClock(FrameClock frameClock) {
+        this.frameClock = frameClock;
+        thumbAnimator.setFrameClock(frameClock);
+        contentAnimator.setFrameClock(frameClock);
+        layoutAnimator.setFrameClock(frameClock);
+        indexChangeDispatcher.setFrameClock(frameClock);
+    }
+
+    private class ThumbAnimatorListener implements ThumbAnimator.Listener {
 
         @Override
-        public boolean onSingleTapUp(MotionEvent e) {
-            changeIndex(getIndexByTouch(e.getX()), true);
-            return super.onSingleTapUp(e);
+        public void onAnimationUpdate(int value) {
+            mCurrentOffsetX = getValidOffsetX(value);
+            //选中的 label 在可见范围外时，内容跟着 thumb 滚动
+            ensureThumbVisible();
+            invalidateThumb();
+            onThumbMoved();
         }
 
         @Override
-        public boolean onScroll(MotionEvent e1, MotionEvent e2, float distanceX, float distanceY) {
-            if (!thumbInTouch) {
-                return false;
+        public void onAnimationEnd() {
+            if (metricsListener != null && touchUpNanos != 0) {
+                metricsListener.onSettle(frameClock.nanoTime() - touchUpNanos);
             }
-            if ((distanceX < 0 && canScrollRight())
-                    || (distanceX > 0 && canScrollLeft())) {
-                onTouchMove(-distanceX);
+            onThumbSettled();
+        }
+    }
+
+    /**
+     * 从旧的格子宽度和 thumb 位置开始，和新的格子宽度、选中格子的位置一起过渡
+     */
+    private void startLayoutTransition(int fromWidth, int fromOffsetX) {
+        LabelLayout layout = ensureLabelLayout();
+        if (fromWidth == layout.getTargetElementWidth() && fromOffsetX == mCurrentOffsetX) {
+            return;
+        }
+        transitionFromWidth = fromWidth;
+        transitionFromOffsetX = fromOffsetX;
+        layoutAnimator.animateTo(0, LAYOUT_TRANSITION_RANGE, 0);
+        applyLayoutTransition(0);
+    }
+
+    private void applyLayoutTransition(int progress) {
+        LabelLayout layout = ensureLabelLayout();
+        float fraction = (float) progress / LAYOUT_TRANSITION_RANGE;
+        int targetWidth = layout.getTargetElementWidth();
+        layout.setDisplayElementWidth(Math.round(transitionFromWidth + (targetWidth - transitionFromWidth) * fraction));
+        int targetX = layout.getTargetCellLeft(selectedIndex);
+        mCurrentOffsetX = Math.round(transitionFromOffsetX + (targetX - transitionFromOffsetX) * fraction);
+        contentScrollX = getValidContentScrollX(contentScrollX);
+        ensureThumbVisible();
+        //所有格子都在移动，整个 view 重绘
+        invalidate();
+    }
+
+    /**
+     * 直接跳到过渡结束时的状态
+     */
+    private void finishLayoutTransition() {
+        if (!layoutAnimator.isRunning()) {
+            return;
+        }
+        cancelLayoutTransition();
+        mCurrentOffsetX = getCellLeft(selectedIndex);
+        contentScrollX = getValidContentScrollX(contentScrollX);
+        ensureThumbVisible();
+        indexChangeDispatcher.onSettled();
+        invalidate();
+    }
+
+    private void cancelLayoutTransition() {
+        layoutAnimator.cancel();
+        //View 的构造函数里可能会调用 setPadding，此时 labelLayout 还没有初始化
+        if (labelLayout != null) {
+            labelLayout.endTransition();
+        }
+    }
+
+    private class AdapterObserver implements LabelAdapter.Observer {
+
+        @Override
+        public void onChanged() {
+            invalidateLabelLayout();
+            onLabelsChanged(selectedIndex);
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            labelLayout.onItemRangeChanged(positionStart, itemCount);
+            onLabelsChanged(selectedIndex);
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            labelLayout.onItemRangeInserted(positionStart, itemCount);
+            //选中的 label 不变，位置跟着插入的 label 后移
+            onLabelsChanged(selectedIndex >= positionStart ? selectedIndex + itemCount : selectedIndex);
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            labelLayout.onItemRangeRemoved(positionStart, itemCount);
+            int newSelectedIndex = selectedIndex;
+            if (selectedIndex >= positionStart + itemCount) {
+                newSelectedIndex = selectedIndex - itemCount;
+            } else if (selectedIndex >= positionStart) {
+                //选中的 label 被删除了，选中删除位置上的下一个
+                newSelectedIndex = positionStart;
             }
-            return super.onScroll(e1, e2, distanceX, distanceY);
+            onLabelsChanged(newSelectedIndex);
+        }
+    }
+
+    private class LayoutAnimatorListener implements ThumbAnimator.Listener {
+
+        @Override
+        public void onAnimationUpdate(int value) {
+            applyLayoutTransition(value);
+        }
+
+        @Override
+        public void onAnimationEnd() {
+            ensureLabelLayout().endTransition();
+            indexChangeDispatcher.onSettled();
+        }
+    }
+
+    private class ContentAnimatorListener implements ThumbAnimator.Listener {
+
+        @Override
+        public void onAnimationUpdate(int value) {
+            scrollContentTo(value);
+        }
+
+        @Override
+        public void onAnimationEnd() {
         }
     }
 
@@ -0,0 +1,95 @@
+package com.ray.widget.lab;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.text.TextPaint;
+
+/**
+ * 预先把所有 label 分别用 normalColor 和 selectedColor 画到两张和 view 一样大的 bitmap 上。
+ * 每帧只需要画两次 bitmap：normal 层整张画，selected 层裁剪到 thumb 的区域，
+ * thumb 边缘处的颜色过渡也因此是像素级准确的。
+ * labels、颜色、尺寸或字号改变时调用 {@link #invalidate()}，下次绘制时重新生成；
+ * 格子宽度改变（例如布局过渡结束）时也会重新生成。
+ */
+class LabelTextAtlas {
+
+    private Bitmap normalLayer;
+    private Bitmap selectedLayer;
+    private boolean valid = false;
+    //生成时的参数，用于检查是否需要重新生成
+    private int normalColor, selectedColor;
+    private float textSize;
+    private int elementWidth;
+
+    void invalidate() {
+        valid = false;
+    }
+
+    void release() {
+        normalLayer = null;
+        selectedLayer = null;
+        valid = false;
+    }
+
+    /**
+     * 检查缓存是否可用，不可用时重新生成
+     *
+     * @return 是否有可以绘制的缓存
+     */
+    boolean ensure(LabelLayout layout, TextPaint paint,
+                   int normalColor, int selectedColor, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            return false;
+        }
+        if (valid && this.normalColor == normalColor && this.selectedColor == selectedColor
+                && textSize == paint.getTextSize() && elementWidth == layout.getElementWidth()
+                && normalLayer.getWidth() == width && normalLayer.getHeight() == height) {
+            return true;
+        }
+        normalLayer = obtainLayer(normalLayer, width, height);
+        selectedLayer = obtainLayer(selectedLayer, width, height);
+        drawLayer(normalLayer, layout, paint, normalColor);
+        drawLayer(selectedLayer, layout, paint, selectedColor);
+        this.normalColor = normalColor;
+        this.selectedColor = selectedColor;
+        this.textSize = paint.getTextSize();
+        this.elementWidth = layout.getElementWidth();
+        valid = true;
+        return true;
+    }
+
+    void drawNormal(Canvas canvas, Paint paint) {
+        canvas.drawBitmap(normalLayer, 0, 0, paint);
+    }
+
+    void drawSelected(Canvas canvas, Paint paint, float left, float top, float right, float bottom) {
+        int saveCount = canvas.save();
+        canvas.clipRect(left, top, right, bottom);
+        canvas.drawBitmap(selectedLayer, 0, 0, paint);
+        canvas.restoreToCount(saveCount);
+    }
+
+    private static Bitmap obtainLayer(Bitmap layer, int width, int height) {
+        if (layer != null && layer.getWidth() == width && layer.getHeight() == height) {
+            layer.eraseColor(Color.TRANSPARENT);
+            return layer;
+        }
+        return Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+    }
+
+    private void drawLayer(Bitmap layer, LabelLayout layout, TextPaint paint, int color) {
+        drawLabels(new Canvas(layer), layout, paint, color);
+    }
+
+    void drawLabels(Canvas canvas, LabelLayout layout, TextPaint paint, int color) {
+        int oldColor = paint.getColor();
+        paint.setColor(color);
+        float baseline = layout.getBaseline();
+        for (int i = 0; i < layout.getCount(); i++) {
+            canvas.drawText(layout.getText(i), layout.getTextX(i), baseline, paint);
+        }
+        paint.setColor(oldColor);
+    }
+}
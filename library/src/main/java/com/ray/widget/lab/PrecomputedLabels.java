@@ -0,0 +1,112 @@
+package com.ray.widget.lab;
+
+import android.text.TextPaint;
+
+/**
+ * 预先计算好的 label 布局，可以在后台线程创建，绑定时交给 {@link LabelSwitchView#setPrecomputedLabels(PrecomputedLabels)}，
+ * view 的尺寸和样式与创建时一致时直接使用，第一帧不需要再获取和测量 label。
+ * 同一个结果可以被多个 view 使用，创建后不要修改 labels 数组。
+ */
+public final class PrecomputedLabels {
+
+    private final CharSequence[] labels;
+    private final Params params;
+    private final LabelLayout layout;
+
+    private PrecomputedLabels(CharSequence[] labels, Params params, LabelLayout layout) {
+        this.labels = labels;
+        this.params = params;
+        this.layout = layout;
+    }
+
+    /**
+     * 获取并测量所有 label，可以在任意线程调用
+     *
+     * @param params 通过 {@link LabelSwitchView#getPrecomputeParams(int, int)} 获取
+     */
+    public static PrecomputedLabels create(CharSequence[] labels, Params params) {
+        //每次使用单独的 TextPaint，多个线程同时计算时不共享
+        TextPaint paint = new TextPaint(params.paint);
+        LabelLayout layout = new LabelLayout();
+        layout.compute(new ArrayLabelAdapter(labels), paint,
+                params.paddingLeft, params.paddingTop,
+                params.width - params.paddingLeft - params.paddingRight,
+                params.height - params.paddingTop - params.paddingBottom,
+                params.labelWidth, params.labelPadding);
+        layout.measureAll();
+        return new PrecomputedLabels(labels, params, layout);
+    }
+
+    public CharSequence[] getLabels() {
+        return labels;
+    }
+
+    public Params getParams() {
+        return params;
+    }
+
+    LabelLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * 决定 label 布局的 view 尺寸和文字样式，文字样式保存在 TextPaint 的副本中
+     */
+    public static final class Params {
+        final TextPaint paint;
+        final int width, height;
+        final int paddingLeft, paddingTop, paddingRight, paddingBottom;
+        final int labelWidth, labelPadding;
+
+        Params(TextPaint paint, int width, int height,
+               int paddingLeft, int paddingTop, int paddingRight, int paddingBottom,
+               int labelWidth, int labelPadding) {
+            this.paint = new TextPaint(paint);
+            this.width = width;
+            this.height = height;
+            this.paddingLeft = paddingLeft;
+            this.paddingTop = paddingTop;
+            this.paddingRight = paddingRight;
+            this.paddingBottom = paddingBottom;
+            this.labelWidth = labelWidth;
+            this.labelPadding = labelPadding;
+        }
+
+        boolean matches(TextPaint paint, int width, int height,
+                        int paddingLeft, int paddingTop, int paddingRight, int paddingBottom,
+                        int labelWidth, int labelPadding) {
+            return this.width == width && this.height == height
+                    && this.paddingLeft == paddingLeft && this.paddingTop == paddingTop
+                    && this.paddingRight == paddingRight && this.paddingBottom == paddingBottom
+                    && this.labelWidth == labelWidth && this.labelPadding == labelPadding
+                    && LabelMeasureCache.isSameStyle(this.paint, paint);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Params)) {
+                return false;
+            }
+            Params p = (Params) o;
+            return p.matches(paint, width, height, paddingLeft, paddingTop, paddingRight, paddingBottom,
+                    labelWidth, labelPadding);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = width;
+            result = 31 * result + height;
+            result = 31 * result + paddingLeft;
+            result = 31 * result + paddingTop;
+            result = 31 * result + paddingRight;
+            result = 31 * result + paddingBottom;
+            result = 31 * result + labelWidth;
+            result = 31 * result + labelPadding;
+            result = 31 * result + Float.floatToIntBits(paint.getTextSize());
+            return result;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.ray.widget.lab;
+
+import android.graphics.Canvas;
+import android.text.TextPaint;
+
+/**
+ * showSwipeRelative 时 thumb 上两侧 label 文字的过渡效果。
+ * thumb 离开选中的格子时，当前格子的文字逐渐退出，thumb 移向的格子的文字逐渐进入，
+ * 每帧对两侧的文字各调用一次 {@link #draw}，位置和进度已经算好，实现里不要测量文字或分配对象。
+ */
+public abstract class RelativeTextEffect {
+
+    /**
+     * 滑入滑出并淡入淡出，默认效果
+     */
+    public static final RelativeTextEffect SLIDE_FADE = new SlideFade();
+    /**
+     * 停在原位淡入淡出
+     */
+    public static final RelativeTextEffect FADE = new Fade();
+    /**
+     * 只滑入滑出，不改变透明度
+     */
+    public static final RelativeTextEffect SLIDE = new Slide();
+    /**
+     * 以文字中心缩放并淡入淡出
+     */
+    public static final RelativeTextEffect SCALE = new Scale();
+    /**
+     * 停在原位，颜色在 normal 和 selected 之间过渡
+     */
+    public static final RelativeTextEffect COLOR = new ColorBlend();
+
+    /**
+     * @param paint 已经设置为 selected 的颜色、不透明，可以随意修改，绘制完成后会被恢复
+     */
+    public abstract void draw(Canvas canvas, TextPaint paint, RelativeText text);
+
+    /**
+     * 一侧的 relative text 在这一帧的状态，每个 view 复用同一个对象
+     */
+    public static final class RelativeText {
+        String text;
+        float x;
+        float y;
+        float width;
+        float fraction;
+        int side;
+        int normalColor;
+        int selectedColor;
+
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * @return 文字在 thumb 内、不做任何变换时的绘制起点
+         */
+        public float getX() {
+            return x;
+        }
+
+        public float getBaseline() {
+            return y;
+        }
+
+        public float getWidth() {
+            return width;
+        }
+
+        /**
+         * @return 显示的程度，0 为完全退出，1 为 thumb 正好停在这个 label 上
+         */
+        public float getFraction() {
+            return fraction;
+        }
+
+        /**
+         * @return 文字退出的方向，-1 为左侧，1 为右侧
+         */
+        public int getSide() {
+            return side;
+        }
+
+        public int getNormalColor() {
+            return normalColor;
+        }
+
+        public int getSelectedColor() {
+            return selectedColor;
+        }
+
+        /**
+         * @return 滑动效果下的绘制起点，退出时向 side 一侧移出一个文字宽度
+         */
+        public float getSlideX() {
+            return x + side * (1 - fraction) * width;
+        }
+
+        /**
+         * @return 淡入淡出的透明度，完全显示时也只有一半，不会盖过选中的文字
+         */
+        public int getFadeAlpha() {
+            return (int) (fraction * 255) / 2;
+        }
+    }
+
+    private static class SlideFade extends RelativeTextEffect {
+        @Override
+        public void draw(Canvas canvas, TextPaint paint, RelativeText text) {
+            paint.setAlpha(text.getFadeAlpha());
+            canvas.drawText(text.text, text.getSlideX(), text.y, paint);
+        }
+    }
+
+    private static class Fade extends RelativeTextEffect {
+        @Override
+        public void draw(Canvas canvas, TextPaint paint, RelativeText text) {
+            paint.setAlpha(text.getFadeAlpha());
+            canvas.drawText(text.text, text.x, text.y, paint);
+        }
+    }
+
+    private static class Slide extends RelativeTextEffect {
+        @Override
+        public void draw(Canvas canvas, TextPaint paint, RelativeText text) {
+            canvas.drawText(text.text, text.getSlideX(), text.y, paint);
+        }
+    }
+
+    private static class Scale extends RelativeTextEffect {
+        @Override
+        public void draw(Canvas canvas, TextPaint paint, RelativeText text) {
+            paint.setAlpha(text.getFadeAlpha());
+            int saveCount = canvas.save();
+            canvas.scale(text.fraction, text.fraction, text.x + text.width / 2, text.y);
+            canvas.drawText(text.text, text.x, text.y, paint);
+            canvas.restoreToCount(saveCount);
+        }
+    }
+
+    private static class ColorBlend extends RelativeTextEffect {
+        @Override
+        public void draw(Canvas canvas, TextPaint paint, RelativeText text) {
+            paint.setColor(blend(text.normalColor, text.selectedColor, text.fraction));
+            canvas.drawText(text.text, text.x, text.y, paint);
+        }
+
+        /**
+         * 按通道线性插值，不使用 ArgbEvaluator，避免装箱
+         */
+        private static int blend(int from, int to, float fraction) {
+            int a = blendChannel(from >>> 24, to >>> 24, fraction);
+            int r = blendChannel((from >> 16) & 0xFF, (to >> 16) & 0xFF, fraction);
+            int g = blendChannel((from >> 8) & 0xFF, (to >> 8) & 0xFF, fraction);
+            int b = blendChannel(from & 0xFF, to & 0xFF, fraction);
+            return (a << 24) | (r << 16) | (g << 8) | b;
+        }
+
+        private static int blendChannel(int from, int to, float fraction) {
+            return from + (int) ((to - from) * fraction);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.ray.widget.lab;
+
+import android.graphics.Canvas;
+import android.text.TextPaint;
+
+/**
+ * 一次算出 thumb 两侧 relative text 的 label、位置和进度，交给 {@link RelativeTextEffect} 绘制。
+ * 文字宽度和在格子内的偏移都直接从 {@link LabelLayout} 的缓存中取，每帧不测量文字、不分配对象；
+ * thumb 停在格子上时两侧都完全退出，不绘制任何东西。
+ */
+class RelativeTextRenderer {
+
+    private static final int SIDE_LEFT = -1;
+    private static final int SIDE_RIGHT = 1;
+
+    private final RelativeTextEffect.RelativeText relativeText = new RelativeTextEffect.RelativeText();
+    private RelativeTextEffect effect = RelativeTextEffect.SLIDE_FADE;
+
+    void setEffect(RelativeTextEffect effect) {
+        this.effect = effect == null ? RelativeTextEffect.SLIDE_FADE : effect;
+    }
+
+    RelativeTextEffect getEffect() {
+        return effect;
+    }
+
+    /**
+     * @param offsetX   thumb 在内容中的位置
+     * @param thumbLeft thumb 在 view 中的左边界
+     */
+    void draw(Canvas canvas, TextPaint paint, LabelLayout layout, int selectedIndex, int offsetX, float thumbLeft,
+              int normalColor, int selectedColor) {
+        int offset = offsetX - layout.getCellLeft(selectedIndex);
+        int left;
+        int right;
+        float leftFraction;
+        if (offset < 0) {
+            //thumb 在选中格子的左侧，左边的 label 进入，选中的 label 向右退出
+            if (selectedIndex <= 0) {
+                return;
+            }
+            left = selectedIndex - 1;
+            right = selectedIndex;
+            leftFraction = getRate(-offset, layout.getCellWidth(left));
+        } else if (offset > 0) {
+            //thumb 在选中格子的右侧，选中的 label 向左退出，右边的 label 进入
+            if (selectedIndex >= layout.getCount() - 1) {
+                return;
+            }
+            left = selectedIndex;
+            right = selectedIndex + 1;
+            leftFraction = 1 - getRate(offset, layout.getCellWidth(left));
+        } else {
+            return;
+        }
+        relativeText.y = layout.getBaseline();
+        relativeText.normalColor = normalColor;
+        relativeText.selectedColor = selectedColor;
+        drawSide(canvas, paint, layout, left, SIDE_LEFT, leftFraction, thumbLeft, selectedColor);
+        drawSide(canvas, paint, layout, right, SIDE_RIGHT, 1 - leftFraction, thumbLeft, selectedColor);
+        paint.setColor(selectedColor);
+    }
+
+    private void drawSide(Canvas canvas, TextPaint paint, LabelLayout layout, int index, int side, float fraction,
+                          float thumbLeft, int selectedColor) {
+        float width = layout.getTextWidth(index);
+        if (width == 0 || fraction <= 0 || fraction >= 1) {
+            //空字符串，或者完全退出、和选中的文字重合，都不需要绘制
+            return;
+        }
+        RelativeTextEffect.RelativeText text = relativeText;
+        text.text = layout.getText(index);
+        text.x = thumbLeft + layout.getTextOffset(index);
+        text.width = width;
+        text.fraction = fraction;
+        text.side = side;
+        paint.setColor(selectedColor);
+        effect.draw(canvas, paint, text);
+    }
+
+    private static float getRate(int distance, int cellWidth) {
+        return cellWidth <= 0 ? 0 : Math.min(1f, (float) distance / cellWidth);
+    }
+}
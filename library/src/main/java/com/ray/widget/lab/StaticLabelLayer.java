@@ -0,0 +1,57 @@
+package com.ray.widget.lab;
+
+import android.graphics.Canvas;
+import android.graphics.Picture;
+
+/**
+ * 把不随 thumb 移动的 normal 颜色 label 录制成 Picture，拖动和回弹时每帧只回放，不再逐个 drawText。
+ * 只对软件绘制（LAYER_TYPE_SOFTWARE 或软件绘制的窗口）有效：硬件加速的 Canvas 回放 Picture 时
+ * 会把录制的每条命令重新写进 display list，每帧的开销和逐个 drawText 相同，第一帧还要多录制一次。
+ * 录制时的滚动位置、格子宽度或颜色改变后需要重新录制，labels、尺寸或字号改变时调用 {@link #invalidate()}。
+ */
+class StaticLabelLayer {
+
+    private Picture picture;
+    private boolean valid = false;
+    //录制时的参数，用于检查是否需要重新录制
+    private int scrollX, elementWidth, color;
+
+    /**
+     * 硬件加速时回放没有收益，直接逐个 drawText
+     */
+    static boolean canDraw(Canvas canvas) {
+        return !canvas.isHardwareAccelerated();
+    }
+
+    void invalidate() {
+        valid = false;
+    }
+
+    void release() {
+        picture = null;
+        valid = false;
+    }
+
+    boolean isValid(int scrollX, int elementWidth, int color) {
+        return valid && this.scrollX == scrollX && this.elementWidth == elementWidth && this.color == color;
+    }
+
+    Canvas beginRecording(int width, int height) {
+        if (picture == null) {
+            picture = new Picture();
+        }
+        return picture.beginRecording(width, height);
+    }
+
+    void endRecording(int scrollX, int elementWidth, int color) {
+        picture.endRecording();
+        this.scrollX = scrollX;
+        this.elementWidth = elementWidth;
+        this.color = color;
+        valid = true;
+    }
+
+    void draw(Canvas canvas) {
+        canvas.drawPicture(picture);
+    }
+}
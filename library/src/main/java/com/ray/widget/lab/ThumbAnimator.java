@@ -0,0 +1,114 @@
+package com.ray.widget.lab;
+
+import android.view.Choreographer;
+
+/**
+ * thumb 的回弹动画，由帧回调驱动，不依赖父 View 调用 computeScroll。
+ * 使用临界阻尼弹簧：不会来回振荡，时长随距离自然变化，短距离几乎立刻完成；
+ * 可以在任意时刻被打断，或者从当前位置和速度重新指向新的终点，不会跳变。
+ */
+class ThumbAnimator implements Choreographer.FrameCallback {
+
+    interface Listener {
+        void onAnimationUpdate(int value);
+
+        void onAnimationEnd();
+    }
+
+    //弹簧的角频率，越大回弹越快，300px 的距离大约 0.3s 完成
+    private static final float DEFAULT_OMEGA = 28f;
+    //离终点小于半个像素并且速度足够小时结束动画
+    private static final float REST_DISTANCE = 0.5f;
+    private static final float REST_VELOCITY = 10f;//px/s
+    private static final float NANOS_PER_SECOND = 1000000000f;
+
+    private final Listener listener;
+    private FrameClock frameClock = FrameClock.CHOREOGRAPHER;
+    private float omega = DEFAULT_OMEGA;
+
+    private boolean running = false;
+    private long startNanos;
+    private float startValue, startVelocity, target;
+    private float value, velocity;
+
+    ThumbAnimator(Listener listener) {
+        this.listener = listener;
+    }
+
+    void setFrameClock(FrameClock frameClock) {
+        cancel();
+        this.frameClock = frameClock;
+    }
+
+    /**
+     * 从 from 以 initialVelocity 的速度开始，运动到 to
+     *
+     * @param initialVelocity 初始速度，单位 px/s
+     */
+    void animateTo(float from, float to, float initialVelocity) {
+        startValue = from;
+        startVelocity = initialVelocity;
+        target = to;
+        value = from;
+        velocity = initialVelocity;
+        startNanos = frameClock.nanoTime();
+        if (!running) {
+            running = true;
+            frameClock.postFrameCallback(this);
+        }
+    }
+
+    /**
+     * 停在当前位置
+     */
+    void cancel() {
+        if (running) {
+            running = false;
+            frameClock.removeFrameCallback(this);
+        }
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    float getValue() {
+        return value;
+    }
+
+    /**
+     * @return 当前速度，单位 px/s
+     */
+    float getVelocity() {
+        return velocity;
+    }
+
+    float getTarget() {
+        return target;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!running) {
+            return;
+        }
+        //临界阻尼弹簧的解析解：x(t) = (x0 + (v0 + ω·x0)·t)·e^(-ωt)
+        float t = Math.max(0, frameTimeNanos - startNanos) / NANOS_PER_SECOND;
+        float x0 = startValue - target;
+        float b = startVelocity + omega * x0;
+        float decay = (float) Math.exp(-omega * t);
+        float offset = (x0 + b * t) * decay;
+        velocity = (startVelocity - omega * b * t) * decay;
+        if (Math.abs(offset) < REST_DISTANCE && Math.abs(velocity) < REST_VELOCITY) {
+            running = false;
+            value = target;
+            velocity = 0;
+            listener.onAnimationUpdate(Math.round(target));
+            listener.onAnimationEnd();
+            return;
+        }
+        value = target + offset;
+        frameClock.postFrameCallback(this);
+        listener.onAnimationUpdate(Math.round(value));
+    }
+}
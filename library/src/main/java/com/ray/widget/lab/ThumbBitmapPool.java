@@ -0,0 +1,97 @@
+package com.ray.widget.lab;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.LruCache;
+
+/**
+ * 所有 LabelSwitchView 共享的 thumb 背景缓存。
+ * 以资源 id 和实际绘制尺寸为 key，按字节数做 LRU 淘汰，相同背景和尺寸的 view 共用同一张 bitmap。
+ * 被淘汰的 bitmap 不主动 recycle，因为可能还有 view 正在使用，交给 GC 回收。
+ * 只缓存普通位图，.9 图和 shape、vector 等其他 drawable 由 view 直接 draw。
+ */
+class ThumbBitmapPool {
+
+    //默认占用进程最大内存的 1/64
+    private static final int MAX_BYTES = (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 64);
+
+    private static final ThumbBitmapPool sShared = new ThumbBitmapPool(MAX_BYTES);
+
+    private final LruCache<String, Bitmap> cache;
+
+    ThumbBitmapPool(int maxBytes) {
+        cache = new LruCache<String, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return value.getByteCount();
+            }
+        };
+    }
+
+    static ThumbBitmapPool getShared() {
+        return sShared;
+    }
+
+    /**
+     * 获取指定尺寸的 thumb 背景，缓存中没有时按目标尺寸解码
+     *
+     * @return 资源不是普通位图时返回 null
+     */
+    Bitmap obtain(Resources res, int resId, int width, int height) {
+        String key = resId + ":" + width + "x" + height;
+        Bitmap bitmap = cache.get(key);
+        if (bitmap == null) {
+            bitmap = decode(res, resId, width, height);
+            if (bitmap != null) {
+                cache.put(key, bitmap);
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * @return 缓存中所有 bitmap 占用的字节数
+     */
+    int getByteCount() {
+        return cache.size();
+    }
+
+    int getMaxByteCount() {
+        return cache.maxSize();
+    }
+
+    void clear() {
+        cache.evictAll();
+    }
+
+    Bitmap decode(Resources res, int resId, int width, int height) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeResource(res, resId, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            //xml drawable 等不是位图的资源
+            return null;
+        }
+        //先按采样率缩小解码，避免解码出原图大小
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight, width, height);
+        Bitmap bitmap = BitmapFactory.decodeResource(res, resId, options);
+        if (bitmap == null || bitmap.getNinePatchChunk() != null) {
+            //.9 图整体缩放会拉伸边缘和标记，要用 NinePatchDrawable 绘制
+            return null;
+        }
+        if (bitmap.getWidth() != width || bitmap.getHeight() != height) {
+            bitmap = Bitmap.createScaledBitmap(bitmap, width, height, true);
+        }
+        return bitmap;
+    }
+
+    private static int calculateInSampleSize(int srcWidth, int srcHeight, int reqWidth, int reqHeight) {
+        int inSampleSize = 1;
+        while (srcWidth / (inSampleSize * 2) >= reqWidth && srcHeight / (inSampleSize * 2) >= reqHeight) {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+}
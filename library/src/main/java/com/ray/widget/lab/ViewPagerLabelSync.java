@@ -0,0 +1,69 @@
+package com.ray.widget.lab;
+
+import android.support.v4.view.ViewPager;
+
+/**
+ * 让 LabelSwitchView 和 ViewPager 保持同步：拖动 ViewPager 时 thumb 每帧直接跟随滚动进度，
+ * 点击或拖动 label 选中后 ViewPager 切换到对应的页面。
+ * 每帧只调用一次 {@link LabelSwitchView#setSelectedPosition(int, float)}，不分配内存，不启动动画。
+ * 需要 app 自己依赖 support-core-ui。
+ */
+public class ViewPagerLabelSync implements ViewPager.OnPageChangeListener, LabelSwitchView.OnIndexChangeListener {
+
+    private final LabelSwitchView labelSwitchView;
+    private final ViewPager viewPager;
+    private int scrollState = ViewPager.SCROLL_STATE_IDLE;
+    private int previousScrollState = ViewPager.SCROLL_STATE_IDLE;
+
+    private ViewPagerLabelSync(LabelSwitchView labelSwitchView, ViewPager viewPager) {
+        this.labelSwitchView = labelSwitchView;
+        this.viewPager = viewPager;
+    }
+
+    /**
+     * 绑定后 view 直接选中 ViewPager 当前的页面，labels 的数量应该和页面数量一致
+     */
+    public static ViewPagerLabelSync bind(LabelSwitchView labelSwitchView, ViewPager viewPager) {
+        ViewPagerLabelSync sync = new ViewPagerLabelSync(labelSwitchView, viewPager);
+        labelSwitchView.setSelectedIndex(viewPager.getCurrentItem(), false, false);
+        viewPager.addOnPageChangeListener(sync);
+        //thumb 停下后再切换页面，拖动 thumb 经过的页面不会被加载
+        labelSwitchView.addOnIndexChangeListener(sync, LabelSwitchView.DELIVERY_SETTLED);
+        return sync;
+    }
+
+    public void unbind() {
+        viewPager.removeOnPageChangeListener(this);
+        labelSwitchView.removeOnIndexChangeListener(this);
+    }
+
+    @Override
+    public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels) {
+        //setCurrentItem 触发的滚动由 onPageSelected 以 thumb 自己的动画处理，只跟随手指拖动和它之后的回弹
+        if (scrollState != ViewPager.SCROLL_STATE_SETTLING
+                || previousScrollState == ViewPager.SCROLL_STATE_DRAGGING) {
+            labelSwitchView.setSelectedPosition(position, positionOffset);
+        }
+    }
+
+    @Override
+    public void onPageSelected(int position) {
+        if (scrollState == ViewPager.SCROLL_STATE_SETTLING
+                && previousScrollState != ViewPager.SCROLL_STATE_DRAGGING) {
+            labelSwitchView.setSelectedIndex(position, true, false);
+        }
+    }
+
+    @Override
+    public void onPageScrollStateChanged(int state) {
+        previousScrollState = scrollState;
+        scrollState = state;
+    }
+
+    @Override
+    public void onIndexChange(int oldIndex, int newIndex) {
+        if (viewPager.getCurrentItem() != newIndex) {
+            viewPager.setCurrentItem(newIndex, true);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.ray.widget.lab;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class IndexChangeDispatcherTest {
+
+    private IndexChangeDispatcher dispatcher;
+    private FakeFrameClock frameClock;
+
+    @Before
+    public void setUp() {
+        dispatcher = new IndexChangeDispatcher();
+        frameClock = new FakeFrameClock();
+        dispatcher.setFrameClock(frameClock);
+    }
+
+    @Test
+    public void immediateListenerReceivesEveryChange() {
+        RecordingListener listener = new RecordingListener();
+        dispatcher.add(listener, LabelSwitchView.DELIVERY_IMMEDIATE);
+        dispatcher.dispatch(0, 1);
+        dispatcher.dispatch(1, 2);
+        assertEquals("[0->1, 1->2]", listener.calls.toString());
+    }
+
+    @Test
+    public void coalescedListenerReceivesOneChangePerFrame() {
+        RecordingListener listener = new RecordingListener();
+        dispatcher.add(listener, LabelSwitchView.DELIVERY_COALESCED);
+        dispatcher.dispatch(0, 1);
+        dispatcher.dispatch(1, 2);
+        dispatcher.dispatch(2, 3);
+        assertTrue(listener.calls.isEmpty());
+        frameClock.advance();
+        assertEquals("[0->3]", listener.calls.toString());
+    }
+
+    @Test
+    public void coalescedChangeBackToStartIsDropped() {
+        RecordingListener listener = new RecordingListener();
+        dispatcher.add(listener, LabelSwitchView.DELIVERY_COALESCED);
+        dispatcher.dispatch(2, 3);
+        dispatcher.dispatch(3, 2);
+        frameClock.advance();
+        assertTrue(listener.calls.isEmpty());
+    }
+
+    @Test
+    public void settledListenerWaitsForSettle() {
+        RecordingListener listener = new RecordingListener();
+        dispatcher.add(listener, LabelSwitchView.DELIVERY_SETTLED);
+        for (int i = 0; i < 7; i++) {
+            dispatcher.dispatch(i, i + 1);
+            frameClock.advance();
+        }
+        assertTrue(listener.calls.isEmpty());
+        dispatcher.onSettled();
+        dispatcher.onSettled();
+        assertEquals("[0->7]", listener.calls.toString());
+    }
+
+    @Test
+    public void flushDeliversPendingChanges() {
+        RecordingListener coalesced = new RecordingListener();
+        RecordingListener settled = new RecordingListener();
+        dispatcher.add(coalesced, LabelSwitchView.DELIVERY_COALESCED);
+        dispatcher.add(settled, LabelSwitchView.DELIVERY_SETTLED);
+        dispatcher.dispatch(1, 4);
+        dispatcher.flush();
+        assertEquals("[1->4]", coalesced.calls.toString());
+        assertEquals("[1->4]", settled.calls.toString());
+        frameClock.advance();
+        assertEquals(1, coalesced.calls.size());
+    }
+
+    @Test
+    public void removedListenerIsNotCalled() {
+        RecordingListener first = new RecordingListener();
+        RecordingListener second = new RecordingListener();
+        dispatcher.add(first, LabelSwitchView.DELIVERY_IMMEDIATE);
+        dispatcher.add(second, LabelSwitchView.DELIVERY_IMMEDIATE);
+        dispatcher.remove(first);
+        dispatcher.dispatch(0, 1);
+        assertTrue(first.calls.isEmpty());
+        assertEquals("[0->1]", second.calls.toString());
+    }
+
+    private static class RecordingListener implements LabelSwitchView.OnIndexChangeListener {
+        final List<String> calls = new ArrayList<>();
+
+        @Override
+        public void onIndexChange(int oldIndex, int newIndex) {
+            calls.add(oldIndex + "->" + newIndex);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.ray.widget.lab;
+
+import android.graphics.Rect;
+import android.view.View;
+import android.view.accessibility.AccessibilityNodeInfo;
+import android.view.accessibility.AccessibilityNodeProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 每个 label 是一个虚拟节点，区域来自 label 布局，点击和点击 label 一样改变选中
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class LabelAccessibilityProviderTest {
+
+    private static final int WIDTH = 600;
+    private static final int HEIGHT = 80;
+
+    private LabelSwitchView view;
+    private AccessibilityNodeProvider provider;
+
+    @Before
+    public void setUp() {
+        view = new LabelSwitchView(RuntimeEnvironment.application);
+        view.setFrameClock(new FakeFrameClock());
+        view.setLabels(new String[]{"A", "B", "C"});
+        view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, WIDTH, HEIGHT);
+        provider = view.getAccessibilityNodeProvider();
+    }
+
+    @Test
+    public void labelNodeHasTextAndCellBounds() {
+        AccessibilityNodeInfo info = provider.createAccessibilityNodeInfo(1);
+        assertEquals("B", info.getText().toString());
+        Rect bounds = new Rect();
+        info.getBoundsInParent(bounds);
+        assertEquals(new Rect(200, 0, 400, HEIGHT), bounds);
+        assertFalse(info.isSelected());
+        assertNull(provider.createAccessibilityNodeInfo(3));
+    }
+
+    @Test
+    public void clickSelectsLabel() {
+        assertTrue(provider.performAction(2, AccessibilityNodeInfo.ACTION_CLICK, null));
+        assertEquals(2, view.getSelectedIndex());
+        assertTrue(provider.createAccessibilityNodeInfo(2).isSelected());
+        //已经选中的不能再点击
+        assertFalse(provider.performAction(2, AccessibilityNodeInfo.ACTION_CLICK, null));
+    }
+}
@@ -0,0 +1,157 @@
+package com.ray.widget.lab;
+
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * adapter 的 label 只在需要时获取，局部变化只重新获取受影响的 label
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class LabelAdapterTest {
+
+    private static final int WIDTH = 600;
+    private static final int HEIGHT = 80;
+    private static final int LABEL_WIDTH = 100;
+
+    private LabelSwitchView view;
+    private CountingAdapter adapter;
+
+    @Before
+    public void setUp() {
+        adapter = new CountingAdapter(10000);
+        view = new LabelSwitchView(RuntimeEnvironment.application);
+        view.setFrameClock(new FakeFrameClock());
+        view.setLabelWidth(LABEL_WIDTH);
+        view.setAdapter(adapter);
+        //只有 attach 后才注册 observer
+        assertFalse(adapter.hasObservers());
+        view.onAttachedToWindow();
+        assertTrue(adapter.hasObservers());
+        view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    @Test
+    public void onlyVisibleLabelsAreFetched() {
+        view.onDraw(new RecordingCanvas());
+        assertTrue("fetched " + adapter.fetches, adapter.fetches <= WIDTH / LABEL_WIDTH + 2);
+    }
+
+    @Test
+    public void itemChangeRefetchesOnlyThatItem() {
+        view.onDraw(new RecordingCanvas());
+        adapter.fetches = 0;
+        adapter.labels.set(2, "changed");
+        adapter.notifyItemChanged(2);
+
+        RecordingCanvas canvas = new RecordingCanvas();
+        view.onDraw(canvas);
+        assertEquals(1, adapter.fetches);
+        assertTrue(canvas.texts.contains("changed"));
+    }
+
+    @Test
+    public void insertBeforeSelectionKeepsSelectedLabel() {
+        view.setSelectedIndex(3);
+        adapter.labels.add(0, "new");
+        adapter.notifyItemInserted(0);
+
+        RecordingCanvas canvas = new RecordingCanvas();
+        view.onDraw(canvas);
+        //最后画的是选中的文字
+        assertEquals("3", canvas.texts.get(canvas.texts.size() - 1));
+    }
+
+    @Test
+    public void removeSelectedClampsSelection() {
+        adapter.labels.subList(2, adapter.labels.size()).clear();
+        adapter.notifyDataSetChanged();
+        view.setSelectedIndex(1);
+        adapter.labels.remove(1);
+        adapter.notifyItemRemoved(1);
+
+        RecordingCanvas canvas = new RecordingCanvas();
+        view.onDraw(canvas);
+        assertEquals("0", canvas.texts.get(canvas.texts.size() - 1));
+    }
+
+    @Test
+    public void reattachWithoutChangesKeepsLayout() {
+        view.onDraw(new RecordingCanvas());
+        view.onDetachedFromWindow();
+        assertFalse(adapter.hasObservers());
+        adapter.fetches = 0;
+        view.onAttachedToWindow();
+
+        view.onDraw(new RecordingCanvas());
+        assertEquals(0, adapter.fetches);
+    }
+
+    @Test
+    public void changeWhileDetachedIsAppliedOnAttach() {
+        view.onDraw(new RecordingCanvas());
+        view.onDetachedFromWindow();
+        adapter.labels.set(2, "changed");
+        adapter.notifyItemChanged(2);
+        view.onAttachedToWindow();
+
+        RecordingCanvas canvas = new RecordingCanvas();
+        view.onDraw(canvas);
+        assertTrue(canvas.texts.contains("changed"));
+    }
+
+    @Test
+    public void detachedViewAppliesChangesWhenDrawn() {
+        LabelSwitchView detached = new LabelSwitchView(RuntimeEnvironment.application);
+        detached.setFrameClock(new FakeFrameClock());
+        detached.setLabelWidth(LABEL_WIDTH);
+        detached.setAdapter(adapter);
+        detached.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        detached.layout(0, 0, WIDTH, HEIGHT);
+        detached.onDraw(new RecordingCanvas());
+        adapter.labels.set(0, "changed");
+        adapter.notifyItemChanged(0);
+
+        RecordingCanvas canvas = new RecordingCanvas();
+        detached.onDraw(canvas);
+        assertTrue(canvas.texts.contains("changed"));
+    }
+
+    private static class CountingAdapter extends LabelAdapter {
+        final List<String> labels = new ArrayList<>();
+        int fetches;
+
+        CountingAdapter(int count) {
+            for (int i = 0; i < count; i++) {
+                labels.add(String.valueOf(i));
+            }
+        }
+
+        @Override
+        public int getCount() {
+            return labels.size();
+        }
+
+        @Override
+        public CharSequence getLabel(int position) {
+            fetches++;
+            return labels.get(position);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.ray.widget.lab;
+
+import android.text.TextPaint;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * proportional 时格子按文字宽度分配，点击查找和 thumb 宽度都基于格子左边界的前缀和
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class LabelLayoutTest {
+
+    private static final int WIDTH = 600;
+    private static final int HEIGHT = 80;
+    private static final String[] LABELS = {"i", "Recommended", "All", "WWWWWWWWWWWW"};
+
+    private LabelLayout layout;
+
+    @Before
+    public void setUp() {
+        TextPaint paint = new TextPaint();
+        paint.setTextSize(32);
+        layout = new LabelLayout();
+        layout.compute(new ArrayLabelAdapter(LABELS), paint, 0, 0, WIDTH, HEIGHT,
+                LabelSwitchView.LABEL_WIDTH_PROPORTIONAL, 0);
+    }
+
+    @Test
+    public void cellsFillWidthInOrder() {
+        assertEquals(0, layout.getCellLeft(0));
+        for (int i = 1; i < LABELS.length; i++) {
+            assertEquals(layout.getCellLeft(i - 1) + layout.getCellWidth(i - 1), layout.getCellLeft(i));
+        }
+        int last = LABELS.length - 1;
+        assertEquals(WIDTH, layout.getCellLeft(last) + layout.getCellWidth(last), 1);
+        assertTrue(layout.getCellWidth(1) > layout.getCellWidth(0));
+    }
+
+    @Test
+    public void indexAtFindsContainingCell() {
+        for (int i = 0; i < LABELS.length; i++) {
+            int left = layout.getCellLeft(i);
+            assertEquals(i, layout.getIndexAt(left));
+            assertEquals(i, layout.getIndexAt(left + layout.getCellWidth(i) - 1));
+        }
+        assertEquals(0, layout.getIndexAt(-10));
+        assertEquals(LABELS.length - 1, layout.getIndexAt(WIDTH * 2));
+    }
+
+    @Test
+    public void nearestIndexRoundsToCloserCell() {
+        int left = layout.getCellLeft(1);
+        int width = layout.getCellWidth(1);
+        assertEquals(1, layout.getNearestIndex(left + width / 2 - 1));
+        assertEquals(2, layout.getNearestIndex(left + width / 2 + 1));
+    }
+
+    @Test
+    public void thumbWidthInterpolatesBetweenCells() {
+        int left = layout.getCellLeft(0);
+        int width = layout.getCellWidth(0);
+        int nextWidth = layout.getCellWidth(1);
+        assertEquals(width, layout.getThumbWidthAt(left));
+        int halfway = layout.getThumbWidthAt(left + width / 2);
+        assertTrue(halfway > width && halfway < nextWidth);
+        assertEquals(nextWidth, layout.getThumbWidthAt(layout.getCellLeft(1)));
+    }
+}
@@ -0,0 +1,73 @@
+package com.ray.widget.lab;
+
+import android.graphics.Paint;
+import android.text.TextPaint;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * 相同字体、字号和文字的测量结果在不同 view 之间共享
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class LabelMeasureCacheTest {
+
+    private static final String[] LABELS = {"Home", "Recommended", "All"};
+
+    @Before
+    public void setUp() {
+        LabelMeasureCache.clear();
+    }
+
+    @Test
+    public void secondLayoutReusesWidths() {
+        float[] widths = computeWidths(newPaint(32));
+        int missCount = LabelMeasureCache.getMissCount();
+        int hitCount = LabelMeasureCache.getHitCount();
+
+        float[] cachedWidths = computeWidths(newPaint(32));
+        assertEquals(missCount, LabelMeasureCache.getMissCount());
+        assertEquals(hitCount + LABELS.length, LabelMeasureCache.getHitCount());
+        for (int i = 0; i < LABELS.length; i++) {
+            assertEquals(widths[i], cachedWidths[i], 0);
+        }
+    }
+
+    @Test
+    public void differentTextSizeIsMeasuredAgain() {
+        computeWidths(newPaint(32));
+        int missCount = LabelMeasureCache.getMissCount();
+        computeWidths(newPaint(40));
+        assertEquals(missCount + LABELS.length, LabelMeasureCache.getMissCount());
+    }
+
+    @Test
+    public void fontMetricsAreShared() {
+        Paint.FontMetrics metrics = LabelMeasureCache.getFontMetrics(newPaint(32));
+        assertSame(metrics, LabelMeasureCache.getFontMetrics(newPaint(32)));
+    }
+
+    private static TextPaint newPaint(int textSize) {
+        TextPaint paint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+        paint.setTextSize(textSize);
+        return paint;
+    }
+
+    private static float[] computeWidths(TextPaint paint) {
+        LabelLayout layout = new LabelLayout();
+        layout.compute(new ArrayLabelAdapter(LABELS), paint, 0, 0, 600, 80,
+                LabelSwitchView.LABEL_WIDTH_PROPORTIONAL, 0);
+        float[] widths = new float[LABELS.length];
+        for (int i = 0; i < LABELS.length; i++) {
+            widths[i] = layout.getTextWidth(i);
+        }
+        return widths;
+    }
+}
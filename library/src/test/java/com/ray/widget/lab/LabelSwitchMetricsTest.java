@@ -0,0 +1,74 @@
+package com.ray.widget.lab;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 直方图分位数的误差在一个桶以内，拖动中按绘制间隔统计丢帧
+ */
+public class LabelSwitchMetricsTest {
+
+    private static final long MS = 1000000L;
+
+    @Test
+    public void bucketUpperBoundContainsValue() {
+        for (long micros = 0; micros < 100000; micros += 7) {
+            int bucket = LabelSwitchMetrics.Histogram.bucketOf(micros);
+            assertTrue(LabelSwitchMetrics.Histogram.upperBoundOf(bucket) >= micros);
+            if (bucket > 0) {
+                assertTrue(LabelSwitchMetrics.Histogram.upperBoundOf(bucket - 1) < micros);
+            }
+        }
+    }
+
+    @Test
+    public void percentileWithinBucketError() {
+        LabelSwitchMetrics.Histogram histogram = new LabelSwitchMetrics.Histogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * MS);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(100 * MS, histogram.getMaxNanos());
+        assertEquals(50500000L, histogram.getMeanNanos());
+        assertNear(50 * MS, histogram.getPercentileNanos(50));
+        assertNear(90 * MS, histogram.getPercentileNanos(90));
+        assertEquals(100 * MS, histogram.getPercentileNanos(100));
+    }
+
+    @Test
+    public void dragFramesOverBudgetCountDroppedFrames() {
+        LabelSwitchMetrics metrics = new LabelSwitchMetrics();
+        metrics.onDrawFrame(MS, 0, true);
+        metrics.onDrawFrame(MS, 16 * MS, true);
+        metrics.onDrawFrame(MS, 50 * MS, true);
+        metrics.onDrawFrame(MS, 0, false);
+        assertEquals(4, metrics.getDrawTime().getCount());
+        assertEquals(3, metrics.getDragFrameCount());
+        assertEquals(2, metrics.getDragFrameInterval().getCount());
+        assertEquals(1, metrics.getOverBudgetFrameCount());
+        assertEquals(2, metrics.getDroppedFrameCount());
+    }
+
+    @Test
+    public void resetClearsEverything() {
+        LabelSwitchMetrics metrics = new LabelSwitchMetrics();
+        metrics.onDrawFrame(MS, 40 * MS, true);
+        metrics.onTouchLatency(MS);
+        metrics.onSettle(MS);
+        metrics.onIndexChangeDelivered(LabelSwitchView.DELIVERY_SETTLED, MS, MS);
+        metrics.reset();
+        assertEquals(0, metrics.getDrawTime().getCount());
+        assertEquals(0, metrics.getTouchLatency().getCount());
+        assertEquals(0, metrics.getSettleTime().getCount());
+        assertEquals(0, metrics.getIndexChangeLatency().getCount());
+        assertEquals(0, metrics.getDroppedFrameCount());
+        assertEquals(0, metrics.getDragFrameInterval().getPercentileNanos(99));
+    }
+
+    private static void assertNear(long expected, long actual) {
+        assertTrue(actual + " < " + expected, actual >= expected);
+        assertTrue(actual + " > " + expected, actual <= expected + expected / 32);
+    }
+}
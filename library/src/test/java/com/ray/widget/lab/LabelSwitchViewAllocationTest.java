@@ -0,0 +1,162 @@
+package com.ray.widget.lab;
+
+import android.graphics.Canvas;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 保证 onDraw、回弹动画、onTouchEvent 在稳定状态下不产生任何对象分配，
+ * 避免滑动过程中触发 GC。
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class LabelSwitchViewAllocationTest {
+
+    private static final int FRAMES = 10000;
+    private static final int WARM_UP_FRAMES = 500;
+
+    private static final int WIDTH = 600;
+    private static final int HEIGHT = 80;
+    private static final String[] LABELS = {"A", "BB", "CCC", "DDDD", "", "FF", "GGG", "H"};
+    private static final float CELL_WIDTH = (float) WIDTH / LABELS.length;
+
+    //一次拖动的帧数：down + move + up + 回弹
+    private static final int DRAG_STEPS = 30;
+    private static final int SETTLE_STEPS = 10;
+    private static final int CYCLE = DRAG_STEPS + SETTLE_STEPS + 2;
+
+    private LabelSwitchView view;
+    private FakeFrameClock frameClock;
+    private Canvas canvas;
+    private MotionEvent down, move, up;
+    private int frame;
+
+    @Before
+    public void setUp() {
+        view = new LabelSwitchView(RuntimeEnvironment.application);
+        frameClock = new FakeFrameClock();
+        view.setFrameClock(frameClock);
+        view.setLabels(LABELS);
+        view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, WIDTH, HEIGHT);
+        canvas = new NoOpCanvas();
+
+        long now = SystemClock.uptimeMillis();
+        down = MotionEvent.obtain(now, now, MotionEvent.ACTION_DOWN, 0, HEIGHT / 2, 0);
+        move = MotionEvent.obtain(now, now, MotionEvent.ACTION_MOVE, 0, HEIGHT / 2, 0);
+        up = MotionEvent.obtain(now, now, MotionEvent.ACTION_UP, 0, HEIGHT / 2, 0);
+    }
+
+    @After
+    public void tearDown() {
+        down.recycle();
+        move.recycle();
+        up.recycle();
+    }
+
+    @Test
+    public void drawDoesNotAllocate() {
+        assertNoAllocation(new Runnable() {
+            @Override
+            public void run() {
+                view.onDraw(canvas);
+            }
+        });
+    }
+
+    @Test
+    public void drawWithSwipeRelativeDoesNotAllocate() {
+        view.setShowSwipeRelative(true);
+        assertNoAllocation(new Runnable() {
+            @Override
+            public void run() {
+                dragFrame();
+            }
+        });
+    }
+
+    @Test
+    public void dragAndSettleDoesNotAllocate() {
+        view.setThumbColor(0xFF0000FF, 8);
+        assertNoAllocation(new Runnable() {
+            @Override
+            public void run() {
+                dragFrame();
+            }
+        });
+    }
+
+    @Test
+    public void proportionalBitmapThumbDragDoesNotAllocate() {
+        //格子宽度各不相同，拖动经过每个格子时 thumb 背景的尺寸都会变化
+        view.setLabelWidth(LabelSwitchView.LABEL_WIDTH_PROPORTIONAL);
+        view.setSelectedBackground(android.R.drawable.ic_menu_add);
+        RecordingCanvas recordingCanvas = new RecordingCanvas();
+        view.onDraw(recordingCanvas);
+        assertEquals(1, recordingCanvas.drawBitmapCount);
+        assertNoAllocation(new Runnable() {
+            @Override
+            public void run() {
+                dragFrame();
+            }
+        });
+    }
+
+    /**
+     * 模拟一帧：在第 0 格和第 3 格之间来回拖动，松手后执行回弹动画。
+     */
+    private void dragFrame() {
+        int step = frame % CYCLE;
+        boolean toRight = (frame / CYCLE) % 2 == 0;
+        float startX = toRight ? CELL_WIDTH / 2 : CELL_WIDTH * 3.5f;
+        float stepX = (toRight ? 3 : -3) * CELL_WIDTH / DRAG_STEPS;
+        if (step == 0) {
+            down.setLocation(startX, HEIGHT / 2);
+            view.onTouchEvent(down);
+        } else if (step <= DRAG_STEPS) {
+            move.setLocation(startX + stepX * step, HEIGHT / 2);
+            view.onTouchEvent(move);
+        } else if (step == DRAG_STEPS + 1) {
+            up.setLocation(startX + stepX * DRAG_STEPS, HEIGHT / 2);
+            view.onTouchEvent(up);
+        }
+        frameClock.advance();
+        view.onDraw(canvas);
+        frame++;
+    }
+
+    private void assertNoAllocation(Runnable frameAction) {
+        for (int i = 0; i < WARM_UP_FRAMES; i++) {
+            frameAction.run();
+        }
+        //统计接口本身的开销
+        long overhead = allocatedBytes();
+        overhead = allocatedBytes() - overhead;
+
+        long start = allocatedBytes();
+        for (int i = 0; i < FRAMES; i++) {
+            frameAction.run();
+        }
+        long allocated = allocatedBytes() - start - overhead;
+        assertEquals("bytes allocated in " + FRAMES + " frames", 0, allocated);
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
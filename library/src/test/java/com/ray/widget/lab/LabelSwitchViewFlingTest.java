@@ -0,0 +1,70 @@
+package com.ray.widget.lab;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 松手速度低于 flingMinVelocity 时回到最近的格子，超过时按速度推算目标，至少走一格，不超出两端
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class LabelSwitchViewFlingTest {
+
+    private static final String[] LABELS = {"A", "B", "C", "D"};
+    //格子足够宽，刚超过阈值的速度推算出的位置仍在当前格子内
+    private static final int CELL = 400;
+    private static final int WIDTH = CELL * 4;
+    private static final int HEIGHT = 80;
+
+    private LabelSwitchViewHarness harness;
+
+    @Before
+    public void setUp() {
+        harness = new LabelSwitchViewHarness(LABELS, WIDTH, HEIGHT);
+    }
+
+    @Test
+    public void slowReleaseReturnsToNearestCell() {
+        //每帧 2px，约 120px/s，低于默认的 400dp/s
+        harness.fling(CELL / 2, 40, 20);
+        harness.settle();
+        assertEquals(0, harness.view.getSelectedIndex());
+    }
+
+    @Test
+    public void flingAdvancesAtLeastOneCell() {
+        //约 600px/s，推算只多走 120px，仍然离第 0 格最近
+        harness.fling(CELL / 2, 40, 4);
+        harness.settle();
+        assertEquals(1, harness.view.getSelectedIndex());
+    }
+
+    @Test
+    public void flingBackwardAdvancesAtLeastOneCell() {
+        harness.view.setSelectedIndex(2, false, false);
+        harness.fling(CELL * 2 + CELL / 2, -40, 4);
+        harness.settle();
+        assertEquals(1, harness.view.getSelectedIndex());
+    }
+
+    @Test
+    public void flingIsClampedAtFirstCell() {
+        //拖到头后不超过 dragOutDist，不会交给父 view
+        harness.fling(CELL / 2, -10, 1);
+        harness.settle();
+        assertEquals(0, harness.view.getSelectedIndex());
+    }
+
+    @Test
+    public void flingIsClampedAtLastCell() {
+        harness.view.setSelectedIndex(3, false, false);
+        harness.fling(CELL * 3 + CELL / 2, 10, 1);
+        harness.settle();
+        assertEquals(3, harness.view.getSelectedIndex());
+    }
+}
@@ -0,0 +1,117 @@
+package com.ray.widget.lab;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewConfiguration;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 横向超过 touch slop 才开始拖动并阻止父 view 拦截，纵向手势整个交给父 view
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class LabelSwitchViewGestureTest {
+
+    private static final int WIDTH = 600;
+    private static final int HEIGHT = 80;
+
+    private LabelSwitchView view;
+    private RecordingParent parent;
+    private FakeFrameClock frameClock;
+    private int touchSlop;
+    private int lastIndex = -1;
+
+    @Before
+    public void setUp() {
+        Context context = RuntimeEnvironment.application;
+        touchSlop = ViewConfiguration.get(context).getScaledTouchSlop();
+        parent = new RecordingParent(context);
+        view = new LabelSwitchView(context);
+        frameClock = new FakeFrameClock();
+        view.setFrameClock(frameClock);
+        view.setLabels(new String[]{"A", "B", "C", "D"});
+        view.setOnIndexChangeListener(new LabelSwitchView.OnIndexChangeListener() {
+            @Override
+            public void onIndexChange(int oldIndex, int newIndex) {
+                lastIndex = newIndex;
+            }
+        });
+        parent.addView(view);
+        view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    @Test
+    public void tapWithinSlopSelectsLabel() {
+        float x = WIDTH * 0.8f;
+        touch(MotionEvent.ACTION_DOWN, x, HEIGHT / 2);
+        touch(MotionEvent.ACTION_MOVE, x + touchSlop / 2, HEIGHT / 2);
+        touch(MotionEvent.ACTION_UP, x + touchSlop / 2, HEIGHT / 2);
+        assertFalse(parent.disallowIntercept);
+        assertEquals(3, lastIndex);
+    }
+
+    @Test
+    public void horizontalDragClaimsGesture() {
+        touch(MotionEvent.ACTION_DOWN, 10, HEIGHT / 2);
+        touch(MotionEvent.ACTION_MOVE, 10 + touchSlop + 1, HEIGHT / 2);
+        assertTrue(parent.disallowIntercept);
+        touch(MotionEvent.ACTION_MOVE, WIDTH * 0.8f, HEIGHT / 2);
+        touch(MotionEvent.ACTION_UP, WIDTH * 0.8f, HEIGHT / 2);
+        settle();
+        assertEquals(3, lastIndex);
+    }
+
+    @Test
+    public void verticalGestureIsLeftToParent() {
+        touch(MotionEvent.ACTION_DOWN, 10, 10);
+        touch(MotionEvent.ACTION_MOVE, 10 + touchSlop, 10 + touchSlop * 2);
+        touch(MotionEvent.ACTION_MOVE, WIDTH * 0.8f, HEIGHT * 4);
+        touch(MotionEvent.ACTION_UP, WIDTH * 0.8f, HEIGHT * 4);
+        settle();
+        assertFalse(parent.disallowIntercept);
+        assertEquals(-1, lastIndex);
+    }
+
+    private void touch(int action, float x, float y) {
+        long now = SystemClock.uptimeMillis();
+        MotionEvent event = MotionEvent.obtain(now, now, action, x, y, 0);
+        view.onTouchEvent(event);
+        event.recycle();
+    }
+
+    private void settle() {
+        while (frameClock.hasPendingFrame()) {
+            frameClock.advance();
+        }
+    }
+
+    private static class RecordingParent extends FrameLayout {
+
+        boolean disallowIntercept;
+
+        RecordingParent(Context context) {
+            super(context);
+        }
+
+        @Override
+        public void requestDisallowInterceptTouchEvent(boolean disallowIntercept) {
+            this.disallowIntercept = disallowIntercept;
+            super.requestDisallowInterceptTouchEvent(disallowIntercept);
+        }
+    }
+}
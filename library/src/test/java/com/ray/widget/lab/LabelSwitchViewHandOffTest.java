@@ -0,0 +1,233 @@
+package com.ray.widget.lab;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.support.v4.view.PagerAdapter;
+import android.support.v4.view.ViewPager;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewConfiguration;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * thumb 拖到头后继续越界拖动，交给外层的 ViewPager 或支持嵌套滚动的父 view。
+ * 事件从父 view 的 dispatchTouchEvent 进入，经过真实的拦截流程。
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class LabelSwitchViewHandOffTest {
+
+    private static final int WIDTH = 400;
+    private static final int HEIGHT = 80;
+    private static final int CELL = WIDTH / 4;
+    private static final int STEP = 10;
+
+    private Context context;
+    private LabelSwitchView view;
+    private FakeFrameClock frameClock;
+    private int touchSlop;
+    private int dragOutDist;
+    private long downTime;
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.application;
+        touchSlop = ViewConfiguration.get(context).getScaledTouchSlop();
+        dragOutDist = DisplayUtil.dip2px(context, 10);
+        view = new LabelSwitchView(context);
+        frameClock = new FakeFrameClock();
+        view.setFrameClock(frameClock);
+        view.setLabels(new String[]{"A", "B", "C", "D"});
+    }
+
+    @Test
+    public void canScrollHorizontallyStopsAtThumbBound() {
+        FrameLayout parent = new FrameLayout(context);
+        parent.addView(view);
+        layout(parent);
+        //没有按在 thumb 上，内容不能滚动
+        assertFalse(view.canScrollHorizontally(-1));
+        assertFalse(view.canScrollHorizontally(1));
+
+        float x = CELL / 2;
+        touch(parent, MotionEvent.ACTION_DOWN, x);
+        //thumb 在第 0 格，只能向右移动
+        assertTrue(view.canScrollHorizontally(-1));
+        assertFalse(view.canScrollHorizontally(1));
+        //越界拖动还没超过 dragOutDist 时也不算能滚动
+        x -= touchSlop + 1;
+        touch(parent, MotionEvent.ACTION_MOVE, x);
+        touch(parent, MotionEvent.ACTION_MOVE, x - dragOutDist / 2);
+        assertFalse(view.canScrollHorizontally(1));
+        touch(parent, MotionEvent.ACTION_UP, x - dragOutDist / 2);
+        settle();
+
+        view.setSelectedIndex(3, false, false);
+        touch(parent, MotionEvent.ACTION_DOWN, CELL * 3 + CELL / 2);
+        assertFalse(view.canScrollHorizontally(-1));
+        assertTrue(view.canScrollHorizontally(1));
+    }
+
+    @Test
+    public void overDragHandsOffToViewPager() {
+        ViewPager pager = new ViewPager(context);
+        final List<Integer> states = new ArrayList<>();
+        pager.addOnPageChangeListener(new ViewPager.SimpleOnPageChangeListener() {
+            @Override
+            public void onPageScrollStateChanged(int state) {
+                states.add(state);
+            }
+        });
+        pager.setAdapter(new SinglePageAdapter(view, 3));
+        layout(pager);
+
+        //按在第 0 格的 thumb 上向左拖
+        float x = CELL / 2;
+        touch(pager, MotionEvent.ACTION_DOWN, x);
+        x -= touchSlop + 1;
+        touch(pager, MotionEvent.ACTION_MOVE, x);
+        //越界拖动超过 dragOutDist 之前 ViewPager 不动
+        for (int moved = 0; moved <= dragOutDist; moved += STEP) {
+            x -= STEP;
+            touch(pager, MotionEvent.ACTION_MOVE, x);
+        }
+        assertEquals(0, pager.getScrollX());
+        assertTrue(states.isEmpty());
+
+        //之后 ViewPager 拦截，LabelSwitchView 收到 cancel
+        x -= STEP;
+        touch(pager, MotionEvent.ACTION_MOVE, x);
+        x -= STEP;
+        touch(pager, MotionEvent.ACTION_MOVE, x);
+        assertEquals(ViewPager.SCROLL_STATE_DRAGGING, (int) states.get(0));
+        assertTrue(pager.getScrollX() > 0);
+        settle();
+        assertEquals(0, view.getSelectedIndex());
+    }
+
+    @Test
+    public void overDragIsDispatchedToNestedScrollingParent() {
+        NestedParent parent = new NestedParent(context);
+        parent.addView(view);
+        layout(parent);
+
+        float x = CELL / 2;
+        touch(parent, MotionEvent.ACTION_DOWN, x);
+        x -= touchSlop + 1;
+        touch(parent, MotionEvent.ACTION_MOVE, x);
+        assertTrue(parent.started);
+        int moves = 4;
+        for (int i = 0; i < moves; i++) {
+            x -= STEP;
+            touch(parent, MotionEvent.ACTION_MOVE, x);
+        }
+        //超过 dragOutDist 之后的部分都交给父 view，手指向左为正
+        int overDrag = STEP * moves;
+        int dispatched = overDrag - (dragOutDist / STEP) * STEP;
+        assertEquals(dispatched, parent.dxUnconsumed);
+        touch(parent, MotionEvent.ACTION_UP, x);
+        assertTrue(parent.stopped);
+        settle();
+        assertEquals(0, view.getSelectedIndex());
+    }
+
+    private void layout(ViewGroup parent) {
+        parent.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        parent.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    private void touch(ViewGroup parent, int action, float x) {
+        long now = SystemClock.uptimeMillis();
+        if (action == MotionEvent.ACTION_DOWN) {
+            downTime = now;
+        }
+        MotionEvent event = MotionEvent.obtain(downTime, now, action, x, HEIGHT / 2, 0);
+        parent.dispatchTouchEvent(event);
+        event.recycle();
+        SystemClock.sleep(16);
+    }
+
+    private void settle() {
+        while (frameClock.hasPendingFrame()) {
+            frameClock.advance();
+        }
+    }
+
+    /**
+     * 第 0 页是 LabelSwitchView，其余是空白页
+     */
+    private static class SinglePageAdapter extends PagerAdapter {
+        private final View firstPage;
+        private final int count;
+
+        SinglePageAdapter(View firstPage, int count) {
+            this.firstPage = firstPage;
+            this.count = count;
+        }
+
+        @Override
+        public int getCount() {
+            return count;
+        }
+
+        @Override
+        public boolean isViewFromObject(View view, Object object) {
+            return view == object;
+        }
+
+        @Override
+        public Object instantiateItem(ViewGroup container, int position) {
+            View page = position == 0 ? firstPage : new View(container.getContext());
+            container.addView(page);
+            return page;
+        }
+
+        @Override
+        public void destroyItem(ViewGroup container, int position, Object object) {
+            container.removeView((View) object);
+        }
+    }
+
+    private static class NestedParent extends FrameLayout {
+        boolean started;
+        boolean stopped;
+        int dxUnconsumed;
+
+        NestedParent(Context context) {
+            super(context);
+        }
+
+        @Override
+        public boolean onStartNestedScroll(View child, View target, int nestedScrollAxes) {
+            started = (nestedScrollAxes & View.SCROLL_AXIS_HORIZONTAL) != 0;
+            return started;
+        }
+
+        @Override
+        public void onNestedScroll(View target, int dxConsumed, int dyConsumed, int dxUnconsumed, int dyUnconsumed) {
+            this.dxUnconsumed += dxUnconsumed;
+        }
+
+        @Override
+        public void onStopNestedScroll(View child) {
+            stopped = true;
+            super.onStopNestedScroll(child);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.ray.widget.lab;
+
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewConfiguration;
+
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 在 JVM 上确定性地驱动 LabelSwitchView：按脚本发送触摸事件，事件时间和动画都由 {@link FakeFrameClock} 决定，
+ * 每帧绘制到新的 {@link RecordingCanvas}，同时记录这一帧内真正测量文字的次数。
+ * 每个 harness 开始时清空共享的 {@link LabelMeasureCache}，测量次数不受其他测试影响。
+ */
+class LabelSwitchViewHarness {
+
+    static final int NORMAL_COLOR = 0xFF888888;
+    static final int SELECTED_COLOR = 0xFF0000FF;
+    static final int THUMB_COLOR = 0xFFEEEEEE;
+    //回弹动画的帧数上限，超过说明动画停不下来
+    static final int MAX_SETTLE_FRAMES = 600;
+
+    final LabelSwitchView view;
+    final FakeFrameClock frameClock = new FakeFrameClock();
+    final List<Frame> frames = new ArrayList<>();
+    final int touchSlop;
+
+    private final int height;
+    private long downTime;
+    private int lastMissCount;
+
+    LabelSwitchViewHarness(String[] labels, int width, int height) {
+        LabelMeasureCache.clear();
+        lastMissCount = LabelMeasureCache.getMissCount();
+        this.height = height;
+        touchSlop = ViewConfiguration.get(RuntimeEnvironment.application).getScaledTouchSlop();
+        view = new LabelSwitchView(RuntimeEnvironment.application);
+        view.setFrameClock(frameClock);
+        view.setLabelColors(NORMAL_COLOR, SELECTED_COLOR);
+        view.setThumbColor(THUMB_COLOR, 0);
+        view.setLabels(labels);
+        view.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(height, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, width, height);
+    }
+
+    /**
+     * 绘制一帧
+     */
+    Frame frame() {
+        RecordingCanvas canvas = new RecordingCanvas();
+        view.onDraw(canvas);
+        int missCount = LabelMeasureCache.getMissCount();
+        Frame frame = new Frame(canvas, missCount - lastMissCount);
+        lastMissCount = missCount;
+        frames.add(frame);
+        return frame;
+    }
+
+    Frame down(float x) {
+        downTime = eventTime();
+        touch(MotionEvent.ACTION_DOWN, x);
+        return frame();
+    }
+
+    /**
+     * 推进一帧后移动到 x 并绘制，和真实设备上每帧一次 move 相同
+     */
+    Frame move(float x) {
+        frameClock.advance();
+        touch(MotionEvent.ACTION_MOVE, x);
+        return frame();
+    }
+
+    Frame up(float x) {
+        frameClock.advance();
+        touch(MotionEvent.ACTION_UP, x);
+        return frame();
+    }
+
+    /**
+     * 在 x 按下，先越过 touch slop 开始拖动，再分 steps 帧匀速拖动 distance，不松手。
+     * 越过 slop 的那一段不移动 thumb，thumb 正好移动 distance。
+     *
+     * @return 手指最后的位置
+     */
+    float drag(float x, float distance, int steps) {
+        down(x);
+        float start = x + (distance > 0 ? touchSlop + 1 : -touchSlop - 1);
+        move(start);
+        for (int i = 1; i <= steps; i++) {
+            move(start + distance * i / steps);
+        }
+        return start + distance;
+    }
+
+    /**
+     * 拖动后在最后一次 move 的同一时刻松手，松手时的速度就是拖动的速度
+     */
+    Frame fling(float x, float distance, int steps) {
+        float end = drag(x, distance, steps);
+        touch(MotionEvent.ACTION_UP, end);
+        return frame();
+    }
+
+    Frame tap(float x) {
+        down(x);
+        return up(x);
+    }
+
+    /**
+     * 推进帧直到动画结束，每帧都绘制
+     *
+     * @return 推进的帧数
+     */
+    int settle() {
+        int count = 0;
+        while (frameClock.hasPendingFrame()) {
+            if (++count > MAX_SETTLE_FRAMES) {
+                throw new AssertionError("animation did not settle in " + MAX_SETTLE_FRAMES + " frames");
+            }
+            frameClock.advance();
+            frame();
+        }
+        return count;
+    }
+
+    Frame lastFrame() {
+        return frames.get(frames.size() - 1);
+    }
+
+    private long eventTime() {
+        return frameClock.nanoTime() / 1000000;
+    }
+
+    private void touch(int action, float x) {
+        MotionEvent event = MotionEvent.obtain(downTime, eventTime(), action, x, height / 2f, 0);
+        view.onTouchEvent(event);
+        event.recycle();
+    }
+
+    static class Frame {
+        final RecordingCanvas canvas;
+        //这一帧（包括之前处理的事件）中实际调用 measureText 的次数
+        final int measureCount;
+
+        Frame(RecordingCanvas canvas, int measureCount) {
+            this.canvas = canvas;
+            this.measureCount = measureCount;
+        }
+
+        int drawTextCount() {
+            return canvas.textCommands.size();
+        }
+
+        /**
+         * @return 选中颜色、不透明的文字，即 thumb 上的文字
+         */
+        RecordingCanvas.TextCommand selectedText() {
+            RecordingCanvas.TextCommand result = null;
+            for (RecordingCanvas.TextCommand command : canvas.textsWithColor(SELECTED_COLOR)) {
+                if (command.alpha == 255) {
+                    result = command;
+                }
+            }
+            return result;
+        }
+    }
+}
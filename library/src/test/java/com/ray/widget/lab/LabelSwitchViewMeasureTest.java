@@ -0,0 +1,92 @@
+package com.ray.widget.lab;
+
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * wrap_content 按 label 宽度和文字高度测量，尺寸改变后布局重新计算
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class LabelSwitchViewMeasureTest {
+
+    private static final int MAX_SIZE = 10000;
+    private static final int HEIGHT = 80;
+
+    private LabelSwitchView view;
+    private FakeFrameClock frameClock;
+
+    @Before
+    public void setUp() {
+        view = new LabelSwitchView(RuntimeEnvironment.application);
+        frameClock = new FakeFrameClock();
+        view.setFrameClock(frameClock);
+        view.setLabels(new String[]{"A", "B", "C"});
+    }
+
+    @Test
+    public void wrapContentWidthIsSumOfCells() {
+        view.setLabelWidth(100);
+        view.setPadding(10, 0, 20, 0);
+        view.measure(View.MeasureSpec.makeMeasureSpec(MAX_SIZE, View.MeasureSpec.AT_MOST),
+                View.MeasureSpec.makeMeasureSpec(MAX_SIZE, View.MeasureSpec.AT_MOST));
+        assertEquals(330, view.getMeasuredWidth());
+        assertTrue(view.getMeasuredHeight() > 0);
+        assertTrue(view.getMeasuredHeight() < MAX_SIZE);
+    }
+
+    @Test
+    public void wrapContentWidthIsLimitedByParent() {
+        view.setLabelWidth(100);
+        view.measure(View.MeasureSpec.makeMeasureSpec(200, View.MeasureSpec.AT_MOST),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        assertEquals(200, view.getMeasuredWidth());
+        assertEquals(HEIGHT, view.getMeasuredHeight());
+    }
+
+    @Test
+    public void wrapContentHeightFitsBitmapThumb() {
+        int resId = android.R.drawable.ic_menu_add;
+        int thumbHeight = RuntimeEnvironment.application.getResources().getDrawable(resId).getIntrinsicHeight();
+        assertTrue(thumbHeight > 0);
+        //文字比 thumb 矮，高度由 thumb 决定
+        view.setLabelTextSize(1);
+        view.setSelectedBackground(resId);
+        view.setPadding(0, 5, 0, 7);
+        view.measure(View.MeasureSpec.makeMeasureSpec(MAX_SIZE, View.MeasureSpec.AT_MOST),
+                View.MeasureSpec.makeMeasureSpec(MAX_SIZE, View.MeasureSpec.AT_MOST));
+        assertEquals(thumbHeight + 12, view.getMeasuredHeight());
+    }
+
+    @Test
+    public void resizeRecomputesCells() {
+        layout(600);
+        layout(300);
+        //三个格子各 100，点击 250 选中最后一个
+        long now = SystemClock.uptimeMillis();
+        MotionEvent down = MotionEvent.obtain(now, now, MotionEvent.ACTION_DOWN, 250, HEIGHT / 2, 0);
+        MotionEvent up = MotionEvent.obtain(now, now, MotionEvent.ACTION_UP, 250, HEIGHT / 2, 0);
+        view.onTouchEvent(down);
+        view.onTouchEvent(up);
+        down.recycle();
+        up.recycle();
+        assertEquals(2, view.getSelectedIndex());
+    }
+
+    private void layout(int width) {
+        view.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, width, HEIGHT);
+    }
+}
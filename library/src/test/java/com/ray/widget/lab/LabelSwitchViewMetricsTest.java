@@ -0,0 +1,109 @@
+package com.ray.widget.lab;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.ray.widget.lab.FakeFrameClock.FRAME_NANOS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * view 在什么时候回调 onTouchLatency 和 onSettle：只统计因为触摸移动了 thumb 的手势，
+ * 时间都按 {@link FakeFrameClock} 的帧计算
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class LabelSwitchViewMetricsTest {
+
+    private static final String[] LABELS = {"A", "B", "C", "D"};
+    private static final int CELL = 100;
+    private static final int WIDTH = CELL * 4;
+    private static final int HEIGHT = 80;
+
+    private LabelSwitchViewHarness harness;
+    private RecordingMetrics metrics;
+
+    @Before
+    public void setUp() {
+        harness = new LabelSwitchViewHarness(LABELS, WIDTH, HEIGHT);
+        metrics = new RecordingMetrics();
+        harness.view.setMetricsListener(metrics);
+    }
+
+    @Test
+    public void tapReportsLatencyAndSettle() {
+        harness.tap(CELL * 2 + CELL / 2);
+        int frameCount = harness.settle();
+        //松手后的下一帧动画才移动 thumb
+        assertEquals(1, metrics.touchLatency.size());
+        assertEquals(2 * FRAME_NANOS, (long) metrics.touchLatency.get(0));
+        assertEquals(1, metrics.settle.size());
+        assertEquals(frameCount * FRAME_NANOS, (long) metrics.settle.get(0));
+    }
+
+    @Test
+    public void dragReportsLatencyAndSettle() {
+        float x = harness.drag(CELL / 2, 40, 4);
+        //越过 slop 的那一帧 thumb 不动，下一帧才开始移动
+        assertEquals(1, metrics.touchLatency.size());
+        assertEquals(2 * FRAME_NANOS, (long) metrics.touchLatency.get(0));
+        harness.up(x);
+        int frameCount = harness.settle();
+        assertEquals(1, metrics.touchLatency.size());
+        assertEquals(1, metrics.settle.size());
+        assertEquals(frameCount * FRAME_NANOS, (long) metrics.settle.get(0));
+    }
+
+    @Test
+    public void programmaticChangeReportsNothing() {
+        harness.view.setSelectedIndex(2);
+        assertTrue(harness.settle() > 0);
+        assertTrue(metrics.touchLatency.isEmpty());
+        assertTrue(metrics.settle.isEmpty());
+    }
+
+    @Test
+    public void tapOnSelectedLabelLeavesNoPendingSample() {
+        harness.tap(CELL / 2);
+        harness.settle();
+        //thumb 没有动，不统计这次点击
+        assertTrue(metrics.touchLatency.isEmpty());
+        assertTrue(metrics.settle.isEmpty());
+
+        //之后用代码切换，不能算到之前那次按下上
+        harness.frameClock.advance(100 * FRAME_NANOS);
+        harness.view.setSelectedIndex(2);
+        harness.settle();
+        assertTrue(metrics.touchLatency.isEmpty());
+        assertTrue(metrics.settle.isEmpty());
+    }
+
+    private static class RecordingMetrics implements LabelSwitchView.MetricsListener {
+        final List<Long> touchLatency = new ArrayList<>();
+        final List<Long> settle = new ArrayList<>();
+
+        @Override
+        public void onDrawFrame(long drawNanos, long frameIntervalNanos, boolean dragging) {
+        }
+
+        @Override
+        public void onTouchLatency(long nanos) {
+            touchLatency.add(nanos);
+        }
+
+        @Override
+        public void onSettle(long nanos) {
+            settle.add(nanos);
+        }
+
+        @Override
+        public void onIndexChangeDelivered(int delivery, long latencyNanos, long callbackNanos) {
+        }
+    }
+}
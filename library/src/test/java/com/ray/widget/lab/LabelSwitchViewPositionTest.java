@@ -0,0 +1,69 @@
+package com.ray.widget.lab;
+
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * setSelectedPosition 直接移动 thumb，不启动动画，也不回调 listener
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class LabelSwitchViewPositionTest {
+
+    private static final int WIDTH = 600;
+    private static final int HEIGHT = 80;
+
+    private LabelSwitchView view;
+    private FakeFrameClock frameClock;
+    private int callbackCount;
+
+    @Before
+    public void setUp() {
+        view = new LabelSwitchView(RuntimeEnvironment.application);
+        frameClock = new FakeFrameClock();
+        view.setFrameClock(frameClock);
+        view.setLabels(new String[]{"A", "B", "C", "D"});
+        view.setOnIndexChangeListener(new LabelSwitchView.OnIndexChangeListener() {
+            @Override
+            public void onIndexChange(int oldIndex, int newIndex) {
+                callbackCount++;
+            }
+        });
+        view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    @Test
+    public void positionSelectsNearestCellWithoutCallback() {
+        view.setSelectedPosition(1, 0.4f);
+        assertEquals(1, view.getSelectedIndex());
+        view.setSelectedPosition(1, 0.6f);
+        assertEquals(2, view.getSelectedIndex());
+        assertFalse(frameClock.hasPendingFrame());
+        assertEquals(0, callbackCount);
+    }
+
+    @Test
+    public void positionInterruptsAnimation() {
+        view.setSelectedIndex(3);
+        view.setSelectedPosition(0, 0f);
+        assertFalse(frameClock.hasPendingFrame());
+        assertEquals(0, view.getSelectedIndex());
+    }
+
+    @Test
+    public void positionIsClampedToLabels() {
+        view.setSelectedPosition(10, 0.5f);
+        assertEquals(3, view.getSelectedIndex());
+    }
+}
@@ -0,0 +1,159 @@
+package com.ray.widget.lab;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+
+import static com.ray.widget.lab.LabelSwitchViewHarness.NORMAL_COLOR;
+import static com.ray.widget.lab.LabelSwitchViewHarness.SELECTED_COLOR;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 通过绘制命令检查每帧画了什么、画了多少：静止、拖动、越界回弹和点击切换
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class LabelSwitchViewRenderingTest {
+
+    private static final String[] LABELS = {"A", "BB", "CCC", "DDDD"};
+    private static final int WIDTH = 600;
+    private static final int HEIGHT = 80;
+    private static final int CELL = WIDTH / 4;
+
+    private LabelSwitchViewHarness harness;
+
+    @Before
+    public void setUp() {
+        harness = new LabelSwitchViewHarness(LABELS, WIDTH, HEIGHT);
+    }
+
+    @Test
+    public void restingFrameDrawsEachLabelOnce() {
+        RecordingCanvas canvas = harness.frame().canvas;
+        List<RecordingCanvas.TextCommand> normal = canvas.textsWithColor(NORMAL_COLOR);
+        assertEquals(LABELS.length, normal.size());
+        for (int i = 0; i < LABELS.length; i++) {
+            assertEquals(LABELS[i], normal.get(i).text);
+        }
+        assertEquals(1, canvas.textsWithColor(SELECTED_COLOR).size());
+        assertEquals(1, canvas.drawRoundRectCount);
+        //选中的文字和下面的文字重合
+        RecordingCanvas.TextCommand selected = harness.lastFrame().selectedText();
+        assertEquals("A", selected.text);
+        assertEquals(normal.get(0).x, selected.x, 0.01f);
+        assertEquals(normal.get(0).y, selected.y, 0.01f);
+    }
+
+    @Test
+    public void selectedTextFollowsFinger() {
+        float restX = harness.frame().selectedText().x;
+        harness.drag(CELL / 2, 40, 4);
+        List<LabelSwitchViewHarness.Frame> frames = harness.frames;
+        for (int i = 1; i <= 4; i++) {
+            LabelSwitchViewHarness.Frame frame = frames.get(frames.size() - 5 + i);
+            assertEquals(restX + 10 * i, frame.selectedText().x, 0.01f);
+        }
+    }
+
+    @Test
+    public void dragFramesReplayStaticLabels() {
+        harness.view.setStaticLayerEnabled(true);
+        harness.drag(CELL / 2, 60, 6);
+        List<LabelSwitchViewHarness.Frame> frames = harness.frames;
+        //按下的那一帧还没有开始拖动，之后每帧 label 都从 Picture 回放，只画选中的文字
+        for (int i = 1; i < frames.size(); i++) {
+            RecordingCanvas canvas = frames.get(i).canvas;
+            assertEquals(1, canvas.drawPictureCount);
+            assertEquals(1, canvas.textCommands.size());
+            assertEquals(0, frames.get(i).measureCount);
+        }
+    }
+
+    @Test
+    public void overDragIsClampedAndSpringsBack() {
+        float restX = harness.frame().selectedText().x;
+        int dragOutDist = DisplayUtil.dip2px(RuntimeEnvironment.application, 10);
+        float x = harness.drag(CELL / 2, 30, 1);
+        //一次拖过头，最多超出 dragOutDist
+        harness.move(x - 100);
+        assertEquals(restX - dragOutDist, harness.lastFrame().selectedText().x, 0.01f);
+        harness.up(x - 100);
+        harness.settle();
+        assertEquals(restX, harness.lastFrame().selectedText().x, 0.01f);
+        assertEquals(0, harness.view.getSelectedIndex());
+    }
+
+    @Test
+    public void relativeTextsFadeWithSwipe() {
+        harness.view.setShowSwipeRelative(true);
+        harness.drag(CELL / 2, CELL / 2, 1);
+        //拖到两个格子中间，两侧的 relative text 各显示一半
+        int relativeCount = 0;
+        for (RecordingCanvas.TextCommand command : harness.lastFrame().canvas.textsWithColor(SELECTED_COLOR)) {
+            if (command.alpha != 255) {
+                assertEquals(63, command.alpha);
+                relativeCount++;
+            }
+        }
+        assertEquals(2, relativeCount);
+    }
+
+    @Test
+    public void restingRelativeFrameDrawsNothingExtra() {
+        harness.view.setShowSwipeRelative(true);
+        assertEquals(LABELS.length + 1, harness.frame().drawTextCount());
+    }
+
+    @Test
+    public void colorEffectBlendsInPlace() {
+        RecordingCanvas canvas = harness.frame().canvas;
+        float restA = canvas.textsWithColor(NORMAL_COLOR).get(0).x;
+        float restB = canvas.textsWithColor(NORMAL_COLOR).get(1).x;
+        harness.view.setShowSwipeRelative(true);
+        harness.view.setRelativeTextEffect(RelativeTextEffect.COLOR);
+        harness.drag(CELL / 2, CELL / 2, 1);
+        //两侧各过渡一半，在 thumb 内原来的位置绘制，不滑动
+        List<RecordingCanvas.TextCommand> blended = harness.lastFrame().canvas.textsWithColor(0xFF4444C3);
+        assertEquals(2, blended.size());
+        assertEquals("A", blended.get(0).text);
+        assertEquals(restA + CELL / 2, blended.get(0).x, 0.01f);
+        assertEquals("BB", blended.get(1).text);
+        assertEquals(restB - CELL / 2, blended.get(1).x, 0.01f);
+    }
+
+    @Test
+    public void labelsAreMeasuredOnlyOnce() {
+        assertEquals(LABELS.length, harness.frame().measureCount);
+        float x = harness.drag(CELL / 2, CELL, 5);
+        harness.up(x);
+        harness.settle();
+        for (int i = 1; i < harness.frames.size(); i++) {
+            assertEquals(0, harness.frames.get(i).measureCount);
+        }
+    }
+
+    @Test
+    public void tapSettlesOnLabel() {
+        harness.frame();
+        harness.tap(CELL * 3 + CELL / 2);
+        int frameCount = harness.settle();
+        assertTrue(frameCount > 0);
+        assertFalse(harness.frameClock.hasPendingFrame());
+        assertEquals(3, harness.view.getSelectedIndex());
+
+        //停下后的一帧 label 重新逐个绘制，选中的文字和下面的文字重合
+        LabelSwitchViewHarness.Frame frame = harness.frame();
+        RecordingCanvas.TextCommand selected = frame.selectedText();
+        assertNotNull(selected);
+        assertEquals("DDDD", selected.text);
+        assertEquals(frame.canvas.textsWithColor(NORMAL_COLOR).get(3).x, selected.x, 0.01f);
+    }
+}
@@ -0,0 +1,70 @@
+package com.ray.widget.lab;
+
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 固定格子宽度时内容可以滚动，只绘制可见的 label，选中的 label 会被滚动到可见范围内。
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class LabelSwitchViewScrollTest {
+
+    private static final int WIDTH = 600;
+    private static final int HEIGHT = 80;
+    private static final int LABEL_WIDTH = 100;
+    private static final int LABEL_COUNT = 10000;
+
+    private LabelSwitchView view;
+    private FakeFrameClock frameClock;
+    private RecordingCanvas canvas;
+
+    @Before
+    public void setUp() {
+        String[] labels = new String[LABEL_COUNT];
+        for (int i = 0; i < LABEL_COUNT; i++) {
+            labels[i] = "Label " + i;
+        }
+        view = new LabelSwitchView(RuntimeEnvironment.application);
+        frameClock = new FakeFrameClock();
+        view.setFrameClock(frameClock);
+        view.setLabels(labels);
+        view.setLabelWidth(LABEL_WIDTH);
+        view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, WIDTH, HEIGHT);
+        canvas = new RecordingCanvas();
+    }
+
+    @Test
+    public void drawsOnlyVisibleLabels() {
+        view.onDraw(canvas);
+        //可见的 6 格，两侧各多画一格，再加上选中的文字
+        assertTrue("drawText count " + canvas.texts.size(), canvas.texts.size() <= WIDTH / LABEL_WIDTH + 3);
+    }
+
+    @Test
+    public void offscreenSelectionScrollsIntoView() {
+        view.setSelectedIndex(5000);
+        while (frameClock.hasPendingFrame()) {
+            frameClock.advance();
+        }
+        view.onDraw(canvas);
+        assertTrue(canvas.texts.contains("Label 5000"));
+        assertFalse(canvas.texts.contains("Label 0"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unsupportedNegativeLabelWidthIsRejected() {
+        view.setLabelWidth(-1);
+    }
+}
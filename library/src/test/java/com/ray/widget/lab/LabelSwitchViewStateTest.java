@@ -0,0 +1,100 @@
+package com.ray.widget.lab;
+
+import android.os.Parcelable;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * 恢复状态和不带动画的选中都直接把 thumb 放到最终位置，不回调 listener
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class LabelSwitchViewStateTest {
+
+    private static final int WIDTH = 600;
+    private static final int HEIGHT = 80;
+    private static final String[] LABELS = {"A", "B", "C", "D", "E"};
+
+    private FakeFrameClock frameClock;
+    private int callbackCount;
+
+    @Before
+    public void setUp() {
+        frameClock = new FakeFrameClock();
+        callbackCount = 0;
+    }
+
+    @Test
+    public void restoreKeepsSelectionWithoutAnimationOrCallback() {
+        LabelSwitchView view = newView();
+        layout(view);
+        view.setSelectedIndex(3, false, false);
+        Parcelable state = view.onSaveInstanceState();
+
+        LabelSwitchView restored = newView();
+        restored.onRestoreInstanceState(state);
+        layout(restored);
+
+        assertEquals(3, restored.getSelectedIndex());
+        assertEquals("D", drawSelectedText(restored));
+        assertFalse(frameClock.hasPendingFrame());
+        assertEquals(0, callbackCount);
+    }
+
+    @Test
+    public void selectionBeforeLayoutIsInPlaceOnFirstFrame() {
+        LabelSwitchView view = newView();
+        view.setSelectedIndex(4);
+        layout(view);
+        assertFalse(frameClock.hasPendingFrame());
+        assertEquals("E", drawSelectedText(view));
+        assertEquals(1, callbackCount);
+    }
+
+    @Test
+    public void selectionBeforeLabelsIsAppliedWhenLabelsAreSet() {
+        LabelSwitchView view = new LabelSwitchView(RuntimeEnvironment.application);
+        view.setFrameClock(frameClock);
+        view.setSelectedIndex(2, false, false);
+        view.setLabels(LABELS);
+        layout(view);
+        assertEquals("C", drawSelectedText(view));
+    }
+
+    private LabelSwitchView newView() {
+        LabelSwitchView view = new LabelSwitchView(RuntimeEnvironment.application);
+        view.setFrameClock(frameClock);
+        view.setLabels(LABELS);
+        view.setOnIndexChangeListener(new LabelSwitchView.OnIndexChangeListener() {
+            @Override
+            public void onIndexChange(int oldIndex, int newIndex) {
+                callbackCount++;
+            }
+        });
+        return view;
+    }
+
+    private static void layout(LabelSwitchView view) {
+        view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    /**
+     * @return 最后绘制的文字，即选中的 label
+     */
+    private static String drawSelectedText(LabelSwitchView view) {
+        RecordingCanvas canvas = new RecordingCanvas();
+        view.onDraw(canvas);
+        return canvas.texts.get(canvas.texts.size() - 1);
+    }
+}
@@ -0,0 +1,140 @@
+package com.ray.widget.lab;
+
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 更新 labels 后 selectedIndex 始终有效，updateLabels 尽量保持选中同一个 label
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class LabelSwitchViewUpdateTest {
+
+    private static final int WIDTH = 600;
+    private static final int HEIGHT = 80;
+
+    private LabelSwitchView view;
+    private FakeFrameClock frameClock;
+
+    @Before
+    public void setUp() {
+        view = new LabelSwitchView(RuntimeEnvironment.application);
+        frameClock = new FakeFrameClock();
+        view.setFrameClock(frameClock);
+        view.setLabels(new String[]{"A", "B", "C", "D", "E"});
+        view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    @Test
+    public void setLabelsWithFewerLabelsClampsSelection() {
+        view.setSelectedIndex(4);
+        settle();
+        view.setLabels(new String[]{"X", "Y"});
+        assertEquals("Y", drawSelectedText());
+    }
+
+    @Test
+    public void updateLabelsKeepsSelectedLabel() {
+        view.setSelectedIndex(2);
+        settle();
+        view.updateLabels(new String[]{"new", "A", "C", "D"});
+        settle();
+        assertEquals("C", drawSelectedText());
+    }
+
+    @Test
+    public void updateLabelsFallsBackWhenSelectedLabelIsRemoved() {
+        view.setSelectedIndex(4);
+        settle();
+        view.updateLabels(new String[]{"A", "B"});
+        assertEquals("B", drawSelectedText());
+    }
+
+    @Test
+    public void updateLabelsAnimatesToNewLayout() {
+        assertTransitionMovesLabels();
+        assertEquals(WIDTH / 2, drawLabelGap(), 0.01f);
+        tapSelectsB();
+    }
+
+    @Test
+    public void updateLabelsAnimatesToNewLayoutWithTextAtlas() {
+        view.setTextAtlasEnabled(true);
+        assertTransitionMovesLabels();
+        //过渡中逐个绘制，结束后重新使用图层，图层按新的格子宽度生成见 LabelTextAtlasTest
+        RecordingCanvas canvas = new RecordingCanvas();
+        view.onDraw(canvas);
+        assertEquals(2, canvas.drawBitmapCount);
+        assertTrue(canvas.texts.isEmpty());
+        tapSelectsB();
+    }
+
+    /**
+     * 5 个格子变成 2 个，A 和 B 之间的距离从旧的格子宽度逐渐变大，直到过渡结束
+     */
+    private void assertTransitionMovesLabels() {
+        view.setSelectedIndex(1);
+        settle();
+        view.updateLabels(new String[]{"A", "B"});
+        assertTrue(frameClock.hasPendingFrame());
+        assertEquals(WIDTH / 5, drawLabelGap(), 0.01f);
+        for (int i = 0; i < 5; i++) {
+            frameClock.advance();
+        }
+        assertTrue(frameClock.hasPendingFrame());
+        float gap = drawLabelGap();
+        assertTrue(gap > WIDTH / 5 && gap < WIDTH / 2);
+        settle();
+    }
+
+    private void tapSelectsB() {
+        //两个格子平分宽度，点击右半边选中 B
+        long now = SystemClock.uptimeMillis();
+        MotionEvent down = MotionEvent.obtain(now, now, MotionEvent.ACTION_DOWN, WIDTH * 0.75f, HEIGHT / 2, 0);
+        MotionEvent up = MotionEvent.obtain(now, now, MotionEvent.ACTION_UP, WIDTH * 0.75f, HEIGHT / 2, 0);
+        view.onTouchEvent(down);
+        view.onTouchEvent(up);
+        down.recycle();
+        up.recycle();
+        assertEquals("B", drawSelectedText());
+    }
+
+    private void settle() {
+        while (frameClock.hasPendingFrame()) {
+            frameClock.advance();
+        }
+    }
+
+    /**
+     * 逐个绘制 label 时 A 和 B 的距离，即格子宽度
+     */
+    private float drawLabelGap() {
+        RecordingCanvas canvas = new RecordingCanvas();
+        view.onDraw(canvas);
+        assertEquals(0, canvas.drawBitmapCount);
+        //先绘制的是普通的 label，最后一个是选中的文字
+        return canvas.textCommands.get(1).x - canvas.textCommands.get(0).x;
+    }
+
+    /**
+     * @return 最后绘制的文字，即选中的 label
+     */
+    private String drawSelectedText() {
+        RecordingCanvas canvas = new RecordingCanvas();
+        view.onDraw(canvas);
+        return canvas.texts.get(canvas.texts.size() - 1);
+    }
+}
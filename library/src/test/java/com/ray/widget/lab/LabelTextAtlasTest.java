@@ -0,0 +1,87 @@
+package com.ray.widget.lab;
+
+import android.graphics.Canvas;
+import android.text.TextPaint;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 图层按生成时的格子位置绘制，格子宽度改变后要重新生成
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class LabelTextAtlasTest {
+
+    private static final int WIDTH = 600;
+    private static final int HEIGHT = 80;
+
+    private TextPaint paint;
+    private LabelLayout layout;
+    private RecordingAtlas atlas;
+
+    @Before
+    public void setUp() {
+        paint = new TextPaint();
+        layout = new LabelLayout();
+        layout.compute(new ArrayLabelAdapter(new String[]{"A", "B"}), paint, 0, 0, WIDTH, HEIGHT,
+                LabelSwitchView.LABEL_WIDTH_FILL, 0);
+        atlas = new RecordingAtlas();
+    }
+
+    @Test
+    public void unchangedLayoutIsNotRedrawn() {
+        assertTrue(ensure());
+        assertTrue(ensure());
+        assertEquals(1, atlas.generation);
+    }
+
+    @Test
+    public void elementWidthChangeRedrawsAtNewPositions() {
+        ensure();
+        assertEquals(WIDTH / 2, atlas.gap(), 0.01f);
+
+        layout.setDisplayElementWidth(WIDTH / 5);
+        ensure();
+        assertEquals(2, atlas.generation);
+        assertEquals(WIDTH / 5, atlas.gap(), 0.01f);
+
+        //过渡结束，恢复计算得到的宽度
+        layout.endTransition();
+        ensure();
+        assertEquals(3, atlas.generation);
+        assertEquals(WIDTH / 2, atlas.gap(), 0.01f);
+    }
+
+    private boolean ensure() {
+        return atlas.ensure(layout, paint, 0xFF888888, 0xFF0000FF, WIDTH, HEIGHT);
+    }
+
+    /**
+     * 把 normal 层的 label 记录下来
+     */
+    private static class RecordingAtlas extends LabelTextAtlas {
+        int generation;
+        RecordingCanvas normal;
+
+        @Override
+        void drawLabels(Canvas canvas, LabelLayout layout, TextPaint paint, int color) {
+            super.drawLabels(canvas, layout, paint, color);
+            if (color == 0xFF888888) {
+                generation++;
+                normal = new RecordingCanvas();
+                super.drawLabels(normal, layout, paint, color);
+            }
+        }
+
+        float gap() {
+            return normal.textCommands.get(1).x - normal.textCommands.get(0).x;
+        }
+    }
+}
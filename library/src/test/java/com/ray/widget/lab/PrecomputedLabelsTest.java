@@ -0,0 +1,174 @@
+package com.ray.widget.lab;
+
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * 预先计算的 labels 在尺寸和样式一致时直接使用，绘制第一帧不再测量
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class PrecomputedLabelsTest {
+
+    private static final int WIDTH = 600;
+    private static final int HEIGHT = 80;
+    private static final String[] LABELS = {"Home", "Recommended", "All", "Following"};
+
+    private LabelSwitchView view;
+
+    @Before
+    public void setUp() {
+        view = new LabelSwitchView(RuntimeEnvironment.application);
+        view.setLabelWidth(LabelSwitchView.LABEL_WIDTH_PROPORTIONAL);
+    }
+
+    @Test
+    public void matchingLayoutDrawsWithoutMeasuring() {
+        PrecomputedLabels labels = PrecomputedLabels.create(LABELS, view.getPrecomputeParams(WIDTH, HEIGHT));
+        //清空共享的缓存，之后的测量都会 miss
+        LabelMeasureCache.clear();
+        int missCount = LabelMeasureCache.getMissCount();
+
+        view.setPrecomputedLabels(labels);
+        view.setSelectedIndex(1);
+        layout(WIDTH);
+        RecordingCanvas canvas = new RecordingCanvas();
+        view.onDraw(canvas);
+
+        assertEquals(missCount, LabelMeasureCache.getMissCount());
+        assertEquals("Recommended", canvas.texts.get(canvas.texts.size() - 1));
+    }
+
+    @Test
+    public void differentSizeFallsBackToMeasuring() {
+        PrecomputedLabels labels = PrecomputedLabels.create(LABELS, view.getPrecomputeParams(WIDTH, HEIGHT));
+        view.setPrecomputedLabels(labels);
+        layout(WIDTH / 2);
+        RecordingCanvas canvas = new RecordingCanvas();
+        view.onDraw(canvas);
+        assertEquals("Home", canvas.texts.get(canvas.texts.size() - 1));
+    }
+
+    @Test
+    public void prefetcherCachesByContent() {
+        LabelPrefetcher prefetcher = new LabelPrefetcher(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        }, 4);
+        PrecomputedLabels.Params params = view.getPrecomputeParams(WIDTH, HEIGHT);
+        assertNull(prefetcher.get(LABELS, params));
+        prefetcher.prefetch(LABELS, params);
+        PrecomputedLabels labels = prefetcher.get(LABELS.clone(), view.getPrecomputeParams(WIDTH, HEIGHT));
+        assertNotNull(labels);
+        prefetcher.prefetch(LABELS, params);
+        assertSame(labels, prefetcher.get(LABELS, params));
+    }
+
+    @Test
+    public void failedPrefetchCanBeRetried() {
+        LabelPrefetcher prefetcher = new LabelPrefetcher(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        }, 4);
+        PrecomputedLabels.Params params = view.getPrecomputeParams(WIDTH, HEIGHT);
+        FailingLabel failing = new FailingLabel("Home");
+        CharSequence[] labels = {failing, "All"};
+        try {
+            prefetcher.prefetch(labels, params);
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        assertNull(prefetcher.get(labels, params));
+        //失败的任务不再占着 pending，同样的 labels 可以重新计算
+        failing.failing = false;
+        prefetcher.prefetch(labels, params);
+        assertNotNull(prefetcher.get(labels, params));
+    }
+
+    @Test
+    public void rejectedPrefetchCanBeRetried() {
+        final boolean[] reject = {true};
+        LabelPrefetcher prefetcher = new LabelPrefetcher(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                if (reject[0]) {
+                    throw new RejectedExecutionException();
+                }
+                command.run();
+            }
+        }, 4);
+        PrecomputedLabels.Params params = view.getPrecomputeParams(WIDTH, HEIGHT);
+        try {
+            prefetcher.prefetch(LABELS, params);
+            fail();
+        } catch (RejectedExecutionException expected) {
+        }
+        reject[0] = false;
+        prefetcher.prefetch(LABELS, params);
+        assertNotNull(prefetcher.get(LABELS, params));
+    }
+
+    private void layout(int width) {
+        view.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, width, HEIGHT);
+    }
+
+    /**
+     * 读取内容时抛出异常，模拟计算过程中的失败
+     */
+    private static class FailingLabel implements CharSequence {
+        private final String text;
+        boolean failing = true;
+
+        FailingLabel(String text) {
+            this.text = text;
+        }
+
+        private String text() {
+            if (failing) {
+                throw new IllegalStateException();
+            }
+            return text;
+        }
+
+        @Override
+        public int length() {
+            return text().length();
+        }
+
+        @Override
+        public char charAt(int index) {
+            return text().charAt(index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return text().subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return text();
+        }
+    }
+}
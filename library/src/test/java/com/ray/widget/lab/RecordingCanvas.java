@@ -0,0 +1,96 @@
+package com.ray.widget.lab;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Picture;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 记录 drawText 的文字、位置和颜色，其余绘制命令只计数
+ */
+class RecordingCanvas extends Canvas {
+    final List<String> texts = new ArrayList<>();
+    final List<TextCommand> textCommands = new ArrayList<>();
+    int drawBitmapCount;
+    int drawRoundRectCount;
+    int drawPictureCount;
+
+    @Override
+    public void drawText(String text, float x, float y, Paint paint) {
+        texts.add(text);
+        textCommands.add(new TextCommand(text, x, y, paint.getColor() | 0xFF000000, paint.getAlpha()));
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+        drawBitmapCount++;
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Rect src, RectF dst, Paint paint) {
+        drawBitmapCount++;
+    }
+
+    @Override
+    public void drawRoundRect(RectF rect, float rx, float ry, Paint paint) {
+        drawRoundRectCount++;
+    }
+
+    @Override
+    public void drawPicture(Picture picture) {
+        drawPictureCount++;
+    }
+
+    @Override
+    public int save() {
+        return 1;
+    }
+
+    @Override
+    public boolean clipRect(float left, float top, float right, float bottom) {
+        return true;
+    }
+
+    @Override
+    public void restoreToCount(int saveCount) {
+    }
+
+    /**
+     * @return 用 color 绘制的文字，不区分透明度
+     */
+    List<TextCommand> textsWithColor(int color) {
+        List<TextCommand> result = new ArrayList<>();
+        for (TextCommand command : textCommands) {
+            if (command.color == (color | 0xFF000000)) {
+                result.add(command);
+            }
+        }
+        return result;
+    }
+
+    static class TextCommand {
+        final String text;
+        final float x, y;
+        //不含透明度的颜色，透明度单独记录
+        final int color;
+        final int alpha;
+
+        TextCommand(String text, float x, float y, int color, int alpha) {
+            this.text = text;
+            this.x = x;
+            this.y = y;
+            this.color = color;
+            this.alpha = alpha;
+        }
+
+        @Override
+        public String toString() {
+            return text + "@(" + x + "," + y + ") #" + Integer.toHexString(color) + " a=" + alpha;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.ray.widget.lab;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 按资源 id 和尺寸复用，按字节数做 LRU 淘汰
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class ThumbBitmapPoolTest {
+
+    private static final int RES_A = 1;
+    private static final int RES_B = 2;
+    private static final int RES_C = 3;
+    private static final int RES_D = 4;
+    private static final int SIZE = 10;
+
+    private Resources res;
+    private int bitmapBytes;
+    private CountingPool pool;
+
+    @Before
+    public void setUp() {
+        res = RuntimeEnvironment.application.getResources();
+        bitmapBytes = Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888).getByteCount();
+        //最多放下三张
+        pool = new CountingPool(bitmapBytes * 3);
+    }
+
+    @Test
+    public void sameResourceAndSizeIsReused() {
+        Bitmap first = pool.obtain(res, RES_A, SIZE, SIZE);
+        assertSame(first, pool.obtain(res, RES_A, SIZE, SIZE));
+        assertEquals(1, pool.decodeCount);
+        //尺寸或资源不同都是不同的 key
+        assertNotSame(first, pool.obtain(res, RES_A, SIZE, SIZE + 1));
+        assertNotSame(first, pool.obtain(res, RES_B, SIZE, SIZE));
+        assertEquals(3, pool.decodeCount);
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedWithinBudget() {
+        pool.obtain(res, RES_A, SIZE, SIZE);
+        pool.obtain(res, RES_B, SIZE, SIZE);
+        pool.obtain(res, RES_C, SIZE, SIZE);
+        assertEquals(bitmapBytes * 3, pool.getByteCount());
+        //访问 A 之后 B 是最久没用的
+        pool.obtain(res, RES_A, SIZE, SIZE);
+        pool.obtain(res, RES_D, SIZE, SIZE);
+        assertEquals(bitmapBytes * 3, pool.getByteCount());
+        assertTrue(pool.getByteCount() <= pool.getMaxByteCount());
+        assertEquals(4, pool.decodeCount);
+
+        pool.obtain(res, RES_A, SIZE, SIZE);
+        assertEquals(4, pool.decodeCount);
+        pool.obtain(res, RES_B, SIZE, SIZE);
+        assertEquals(5, pool.decodeCount);
+    }
+
+    @Test
+    public void clearReleasesAllBytes() {
+        pool.obtain(res, RES_A, SIZE, SIZE);
+        pool.clear();
+        assertEquals(0, pool.getByteCount());
+        pool.obtain(res, RES_A, SIZE, SIZE);
+        assertEquals(2, pool.decodeCount);
+    }
+
+    @Test
+    public void undecodableResourceIsNotCached() {
+        pool.decodeNull = true;
+        assertNull(pool.obtain(res, RES_A, SIZE, SIZE));
+        assertNull(pool.obtain(res, RES_A, SIZE, SIZE));
+        assertEquals(0, pool.getByteCount());
+        assertEquals(2, pool.decodeCount);
+    }
+
+    /**
+     * 不读取资源，直接按尺寸生成 bitmap
+     */
+    private static class CountingPool extends ThumbBitmapPool {
+        int decodeCount;
+        boolean decodeNull;
+
+        CountingPool(int maxBytes) {
+            super(maxBytes);
+        }
+
+        @Override
+        Bitmap decode(Resources res, int resId, int width, int height) {
+            decodeCount++;
+            return decodeNull ? null : Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.ray.widget.lab;
+
+import android.support.v4.view.PagerAdapter;
+import android.support.v4.view.ViewPager;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * ViewPager 拖动时 thumb 跟随滚动进度；打断点击 label 后的动画时不能反过来切换 ViewPager 的页面
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class ViewPagerLabelSyncTest {
+
+    private static final String[] LABELS = {"A", "B", "C", "D"};
+    private static final int WIDTH = 400;
+    private static final int HEIGHT = 80;
+    private static final int CELL = WIDTH / LABELS.length;
+
+    private LabelSwitchViewHarness harness;
+    private ViewPager pager;
+    private int settledCount;
+
+    @Before
+    public void setUp() {
+        harness = new LabelSwitchViewHarness(LABELS, WIDTH, HEIGHT);
+        pager = new ViewPager(RuntimeEnvironment.application);
+        pager.setAdapter(new BlankPagerAdapter(LABELS.length));
+        pager.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        pager.layout(0, 0, WIDTH, HEIGHT);
+        ViewPagerLabelSync.bind(harness.view, pager);
+        harness.view.addOnIndexChangeListener(new LabelSwitchView.OnIndexChangeListener() {
+            @Override
+            public void onIndexChange(int oldIndex, int newIndex) {
+                settledCount++;
+            }
+        }, LabelSwitchView.DELIVERY_SETTLED);
+    }
+
+    @Test
+    public void tapSwitchesPageAfterThumbSettles() {
+        harness.tap(CELL * 2 + CELL / 2);
+        assertEquals(0, pager.getCurrentItem());
+        harness.settle();
+        assertEquals(2, pager.getCurrentItem());
+        assertEquals(1, settledCount);
+    }
+
+    @Test
+    public void pagerDragInterruptsThumbAnimation() {
+        harness.tap(CELL * 2 + CELL / 2);
+        harness.frameClock.advance();
+        assertTrue(harness.frameClock.hasPendingFrame());
+
+        //thumb 还在向第 2 格移动时开始拖动 ViewPager
+        assertTrue(pager.beginFakeDrag());
+        pager.fakeDragBy(-WIDTH / 10);
+        //动画被打断，等待 thumb 停下的回调被丢弃，不会让 ViewPager 跳到第 2 页
+        assertEquals(0, pager.getCurrentItem());
+        assertEquals(0, settledCount);
+        assertFalse(harness.frameClock.hasPendingFrame());
+        //thumb 跟随 ViewPager 的进度，选中的 index 和 thumb 的位置一致
+        assertEquals(0, harness.view.getSelectedIndex());
+        assertEquals(CELL / 10, harness.frame().selectedText().x
+                - harness.lastFrame().canvas.textsWithColor(LabelSwitchViewHarness.NORMAL_COLOR).get(0).x, 0.01f);
+
+        pager.fakeDragBy(-WIDTH / 10);
+        assertEquals(0, harness.view.getSelectedIndex());
+        harness.settle();
+        assertEquals(0, pager.getCurrentItem());
+        assertEquals(0, settledCount);
+    }
+
+    @Test
+    public void positionAtThumbRestingPlaceStillUpdatesIndex() {
+        //动画还没开始移动 thumb，ViewPager 报告的位置和 thumb 现在的位置相同
+        harness.view.setSelectedIndex(2);
+        harness.view.setSelectedPosition(0, 0f);
+        assertEquals(0, harness.view.getSelectedIndex());
+        assertEquals("A", harness.frame().selectedText().text);
+        assertEquals(0, settledCount);
+    }
+
+    private static class BlankPagerAdapter extends PagerAdapter {
+        private final int count;
+
+        BlankPagerAdapter(int count) {
+            this.count = count;
+        }
+
+        @Override
+        public int getCount() {
+            return count;
+        }
+
+        @Override
+        public boolean isViewFromObject(View view, Object object) {
+            return view == object;
+        }
+
+        @Override
+        public Object instantiateItem(ViewGroup container, int position) {
+            View page = new View(container.getContext());
+            container.addView(page);
+            return page;
+        }
+
+        @Override
+        public void destroyItem(ViewGroup container, int position, Object object) {
+            container.removeView((View) object);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.ray.widget.lab;
+
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+
+/**
+ * 手动推进的帧时钟，每次 {@link #advance(long)} 相当于一次 vsync。
+ * 回调列表复用，推进过程中不分配内存。
+ */
+class FakeFrameClock implements FrameClock {
+
+    static final long FRAME_NANOS = 16666667L;
+
+    private long nanos = 0;
+    private ArrayList<Choreographer.FrameCallback> pending = new ArrayList<>();
+    private ArrayList<Choreographer.FrameCallback> running = new ArrayList<>();
+
+    @Override
+    public long nanoTime() {
+        return nanos;
+    }
+
+    @Override
+    public void postFrameCallback(Choreographer.FrameCallback callback) {
+        pending.add(callback);
+    }
+
+    @Override
+    public void removeFrameCallback(Choreographer.FrameCallback callback) {
+        pending.remove(callback);
+    }
+
+    /**
+     * 推进一帧
+     */
+    void advance() {
+        advance(FRAME_NANOS);
+    }
+
+    void advance(long deltaNanos) {
+        nanos += deltaNanos;
+        ArrayList<Choreographer.FrameCallback> callbacks = pending;
+        pending = running;
+        running = callbacks;
+        for (int i = 0; i < callbacks.size(); i++) {
+            callbacks.get(i).doFrame(nanos);
+        }
+        callbacks.clear();
+    }
+
+    boolean hasPendingFrame() {
+        return !pending.isEmpty();
+    }
+}
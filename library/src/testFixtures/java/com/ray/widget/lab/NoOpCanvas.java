@@ -0,0 +1,48 @@
+package com.ray.widget.lab;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Picture;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+/**
+ * 不执行任何绘制的 Canvas，避免 Robolectric 的 ShadowCanvas 记录命令时分配内存、增加耗时。
+ * 分配测试和基准测试共用。
+ */
+class NoOpCanvas extends Canvas {
+    @Override
+    public void drawText(String text, float x, float y, Paint paint) {
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Rect src, RectF dst, Paint paint) {
+    }
+
+    @Override
+    public void drawRoundRect(RectF rect, float rx, float ry, Paint paint) {
+    }
+
+    @Override
+    public void drawPicture(Picture picture) {
+    }
+
+    @Override
+    public int save() {
+        return 1;
+    }
+
+    @Override
+    public boolean clipRect(float left, float top, float right, float bottom) {
+        return true;
+    }
+
+    @Override
+    public void restoreToCount(int saveCount) {
+    }
+}